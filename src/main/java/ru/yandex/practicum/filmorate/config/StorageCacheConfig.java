@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(value = "filmorate.cache.enabled", havingValue = "true")
+public class StorageCacheConfig {
+    @Value("${filmorate.cache.maximum-size:100000}")
+    private long maximumSize;
+    @Value("${filmorate.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Bean
+    @Primary
+    public FilmStorage cachingFilmStorage(FilmStorage filmStorage, MeterRegistry registry) {
+        Cache<Long, Film> cache = buildCache();
+        CaffeineCacheMetrics.monitor(registry, cache, "films");
+        return new CachingFilmStorage(filmStorage, cache);
+    }
+
+    @Bean
+    @Primary
+    public UserStorage cachingUserStorage(UserStorage userStorage, MeterRegistry registry) {
+        Cache<Long, User> cache = buildCache();
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+        return new CachingUserStorage(userStorage, cache);
+    }
+
+    private <V> Cache<Long, V> buildCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.export.BatchPreloader;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поле {@code friends} в JSON пользователя — id друзей по возрастанию. Друзья живут в {@link FriendshipStorage},
+ * а не в {@link User}, поэтому поле дописывается при сериализации, а во входящем JSON игнорируется.
+ * Для коллекций пользователей и выгрузки друзья загружаются одним запросом на пачку из 1000 пользователей.
+ */
+@Configuration
+public class UserJsonConfig {
+    private static final int BATCH_SIZE = 1_000;
+    private static final String FRIEND_IDS = UserJsonConfig.class.getName() + ".friendIds";
+    private static final long[] NONE = new long[0];
+
+    @Bean
+    public Module userFriendsModule(FriendshipStorage friendshipStorage) {
+        SimpleModule module = new SimpleModule("UserFriends");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                if (description.getBeanClass() != User.class) {
+                    return serializer;
+                }
+                return new UserWithFriendsSerializer((JsonSerializer<Object>) serializer, friendshipStorage);
+            }
+
+            @Override
+            public JsonSerializer<?> modifyCollectionSerializer(SerializationConfig config, CollectionType type,
+                                                                BeanDescription description,
+                                                                JsonSerializer<?> serializer) {
+                if (!type.getContentType().hasRawClass(User.class)) {
+                    return serializer;
+                }
+                return new UserCollectionSerializer(friendshipStorage);
+            }
+        });
+        return module;
+    }
+
+    @Bean
+    public BatchPreloader userFriendsPreloader(FriendshipStorage friendshipStorage) {
+        return (writer, batch) -> {
+            List<Long> ids = userIds(batch);
+            return ids.isEmpty() ? writer : writer.withAttribute(FRIEND_IDS, friendshipStorage.findFriendIds(ids));
+        };
+    }
+
+    private static List<Long> userIds(Collection<?> items) {
+        List<Long> ids = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof User user && user.getId() != null) {
+                ids.add(user.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static final class UserWithFriendsSerializer extends StdSerializer<User> implements ResolvableSerializer {
+        private final JsonSerializer<Object> bean;
+        private final FriendshipStorage friendshipStorage;
+        private JsonSerializer<Object> fields;
+
+        private UserWithFriendsSerializer(JsonSerializer<Object> bean, FriendshipStorage friendshipStorage) {
+            super(User.class);
+            this.bean = bean;
+            this.friendshipStorage = friendshipStorage;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (bean instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+            fields = bean.unwrappingSerializer(NameTransformer.NOP);
+        }
+
+        @Override
+        public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            long[] friends = friendIds(user.getId(), provider);
+            generator.writeStartObject(user);
+            fields.serialize(user, generator, provider);
+            generator.writeFieldName("friends");
+            generator.writeArray(friends, 0, friends.length);
+            generator.writeEndObject();
+        }
+
+        @SuppressWarnings("unchecked")
+        private long[] friendIds(Long userId, SerializerProvider provider) {
+            if (userId == null) {
+                return NONE;
+            }
+            Map<Long, long[]> preloaded = (Map<Long, long[]>) provider.getAttribute(FRIEND_IDS);
+            long[] friends = preloaded == null ? null : preloaded.get(userId);
+            return friends != null ? friends : friendshipStorage.findFriendIds(userId);
+        }
+    }
+
+    private static final class UserCollectionSerializer extends StdSerializer<Collection<User>> {
+        private final FriendshipStorage friendshipStorage;
+
+        @SuppressWarnings("unchecked")
+        private UserCollectionSerializer(FriendshipStorage friendshipStorage) {
+            super((Class<Collection<User>>) (Class<?>) Collection.class);
+            this.friendshipStorage = friendshipStorage;
+        }
+
+        @Override
+        public void serialize(Collection<User> users, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            JsonSerializer<Object> userSerializer = provider.findValueSerializer(User.class);
+            generator.writeStartArray(users, users.size());
+            List<User> batch = new ArrayList<>(Math.min(users.size(), BATCH_SIZE));
+            for (User user : users) {
+                batch.add(user);
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(batch, userSerializer, generator, provider);
+                }
+            }
+            writeBatch(batch, userSerializer, generator, provider);
+            generator.writeEndArray();
+        }
+
+        private void writeBatch(List<User> batch, JsonSerializer<Object> userSerializer, JsonGenerator generator,
+                                SerializerProvider provider) throws IOException {
+            provider.setAttribute(FRIEND_IDS, friendshipStorage.findFriendIds(userIds(batch)));
+            for (User user : batch) {
+                if (user == null) {
+                    provider.defaultSerializeNull(generator);
+                } else {
+                    userSerializer.serialize(user, generator, provider);
+                }
+            }
+            batch.clear();
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.export.NdjsonExporter;
+import ru.yandex.practicum.filmorate.ingest.LikeIngestionService;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.validator.IdValidator;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +27,43 @@ import java.util.Optional;
 @RequestMapping("/films")
 public class FilmController {
     private static final int TOP_LIKED_FILM_MAX_COUNT = 10;
+    private static final int PAGE_MAX_LIMIT = 10_000;
     private final FilmService filmService;
+    private final TrendingService trendingService;
+    private final SearchService searchService;
     private final UserService userService;
     private final IdValidator idValidator;
+    private final NdjsonExporter ndjsonExporter;
+    private final Optional<LikeIngestionService> likeIngestion;
 
     @GetMapping
-    public List<Film> list() {
-        return filmService.list();
+    public ResponseEntity<StreamingResponseBody> list(@RequestParam(required = false) Optional<Long> after,
+                                                      @RequestParam(required = false) Optional<Integer> limit) {
+        Iterator<Film> films;
+        if (after.isEmpty() && limit.isEmpty()) {
+            films = filmService.iterateAll();
+        } else {
+            int pageSize = limit.orElse(PAGE_MAX_LIMIT);
+            if (pageSize <= 0) {
+                throw new ValidationException("limit должен быть положительным");
+            }
+            films = filmService.list(after.orElse(0L), Math.min(pageSize, PAGE_MAX_LIMIT)).iterator();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ndjsonExporter.exportArray(films));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.export(filmService.iterateAll()));
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q, @RequestParam(required = false) Optional<Integer> count) {
+        return searchService.search(q, count.orElse(TOP_LIKED_FILM_MAX_COUNT));
     }
 
     @GetMapping("/{id}")
@@ -43,24 +82,50 @@ public class FilmController {
         return filmService.update(film);
     }
 
+    /**
+     * С включённым приёмом лайков отвечает 202 до проверки фильма и пользователя: несуществующие id
+     * не дают 404, а отбрасываются при применении (см. {@link LikeIngestionService}). То же для снятия лайка.
+     */
     @PutMapping("/{id}/like/{userId}")
-    public void like(@PathVariable Long id, @PathVariable Long userId) {
+    public ResponseEntity<Void> like(@PathVariable Long id, @PathVariable Long userId) {
         idValidator.validate(id);
         idValidator.validate(userId);
+        if (likeIngestion.isPresent()) {
+            likeIngestion.get().like(id, userId);
+            return ResponseEntity.accepted().build();
+        }
         User user = userService.getById(userId).orElseThrow(() -> new NotFoundException("Пользователя с таким id не найден"));
         filmService.addLike(id, user);
+        return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public void dislike(@PathVariable Optional<Long> id, @PathVariable Optional<Long> userId) {
+    public ResponseEntity<Void> dislike(@PathVariable Optional<Long> id, @PathVariable Optional<Long> userId) {
         idValidator.validate(id);
         idValidator.validate(userId);
+        if (likeIngestion.isPresent()) {
+            likeIngestion.get().unlike(id.get(), userId.get());
+            return ResponseEntity.accepted().build();
+        }
         User user = userService.getById(userId.get()).orElseThrow(() -> new NotFoundException("Пользователя с таким id не найден"));
         filmService.removeLike(id.get(), user);
+        return ResponseEntity.ok().build();
     }
 
     @GetMapping("/popular")
-    public Collection<Film> popular(@RequestParam(required = false) Optional<Integer> count) {
+    public Collection<Film> popular(@RequestParam(required = false) Optional<Integer> count,
+                                    @RequestParam(required = false) Optional<String> window,
+                                    @RequestParam(required = false) Optional<Integer> year) {
+        if (window.isPresent() && year.isPresent()) {
+            throw new ValidationException("window и year нельзя указывать вместе");
+        }
+        if (window.isPresent()) {
+            return trendingService.getTrendingFilms(TrendingService.Window.parse(window.get()),
+                    count.orElse(TOP_LIKED_FILM_MAX_COUNT));
+        }
+        if (year.isPresent()) {
+            return filmService.getMostPopularFilms(count.orElse(TOP_LIKED_FILM_MAX_COUNT), year.get());
+        }
         Collection<Film> mostPopularFilms = filmService.getMostPopularFilms(count.orElse(TOP_LIKED_FILM_MAX_COUNT));
         return mostPopularFilms;
     }
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.ingest.BulkImportService;
+import ru.yandex.practicum.filmorate.ingest.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/import")
+public class ImportController {
+    private final BulkImportService bulkImportService;
+
+    @PostMapping(consumes = {"application/x-ndjson", "text/plain"})
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        return bulkImportService.importNdjson(body);
+    }
+}
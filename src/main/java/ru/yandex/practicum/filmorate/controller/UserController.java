@@ -1,25 +1,58 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.export.NdjsonExporter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.validator.IdValidator;
 
 import java.util.Collection;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/users")
 public class UserController {
+    private static final int PAGE_MAX_LIMIT = 10_000;
+    private static final int FRIEND_SUGGESTIONS_DEFAULT_COUNT = 10;
+    private static final int RECOMMENDATIONS_DEFAULT_COUNT = 10;
     private final UserService userService;
+    private final RecommendationService recommendationService;
     private final IdValidator idValidator;
+    private final NdjsonExporter ndjsonExporter;
 
     @GetMapping
-    public List<User> list() {
-        return userService.list();
+    public ResponseEntity<StreamingResponseBody> list(@RequestParam(required = false) Optional<Long> after,
+                                                      @RequestParam(required = false) Optional<Integer> limit) {
+        Iterator<User> users;
+        if (after.isEmpty() && limit.isEmpty()) {
+            users = userService.iterateAll();
+        } else {
+            int pageSize = limit.orElse(PAGE_MAX_LIMIT);
+            if (pageSize <= 0) {
+                throw new ValidationException("limit должен быть положительным");
+            }
+            users = userService.list(after.orElse(0L), Math.min(pageSize, PAGE_MAX_LIMIT)).iterator();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ndjsonExporter.exportArray(users));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.export(userService.iterateAll()));
     }
 
     @GetMapping("/{id}")
@@ -28,15 +61,30 @@ public class UserController {
         return userService.getById(id).orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
     }
 
+    @GetMapping("/by-login/{login}")
+    public User getByLogin(@PathVariable String login) {
+        return userService.getByLogin(login)
+                .orElseThrow(() -> new NotFoundException("Пользователь с таким login не найден"));
+    }
+
     @GetMapping("/{id}/friends")
     public Collection<User> getFriends(@PathVariable Long id) {
         idValidator.validate(id);
-        return userService.getById(id)
-                .orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"))
-                .getFriends().stream()
-                .filter(uid -> userService.getById(uid).isPresent())
-                .map(uid -> userService.getById(uid).get())
-                .toList();
+        return userService.getFriends(id);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> friendSuggestions(@PathVariable Long id,
+                                              @RequestParam(required = false) Optional<Integer> count) {
+        idValidator.validate(id);
+        return userService.getFriendSuggestions(id, count.orElse(FRIEND_SUGGESTIONS_DEFAULT_COUNT));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> recommendations(@PathVariable Long id,
+                                            @RequestParam(required = false) Optional<Integer> count) {
+        idValidator.validate(id);
+        return recommendationService.recommend(id, count.orElse(RECOMMENDATIONS_DEFAULT_COUNT));
     }
 
     @PostMapping
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.export;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.List;
+
+/**
+ * Загружает то, что сериализатору понадобится для пачки выгружаемых объектов, одним запросом
+ * и передаёт через атрибуты {@link ObjectWriter}.
+ */
+public interface BatchPreloader {
+
+    ObjectWriter preload(ObjectWriter writer, List<?> batch);
+}
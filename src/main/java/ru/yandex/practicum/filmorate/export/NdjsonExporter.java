@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+@Component
+public class NdjsonExporter {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final int BATCH_SIZE = 1_000;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final List<BatchPreloader> preloaders;
+
+    public NdjsonExporter(ObjectMapper objectMapper, List<BatchPreloader> preloaders) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.preloaders = preloaders;
+    }
+
+    public StreamingResponseBody export(Iterator<?> items) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                writeAll(items, generator, true);
+            }
+        };
+    }
+
+    /**
+     * Тот же потоковый вывод одним JSON-массивом — для ответов, которые клиенты ждут списком.
+     */
+    public StreamingResponseBody exportArray(Iterator<?> items) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                writeAll(items, generator, false);
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    private void writeAll(Iterator<?> items, JsonGenerator generator, boolean lines) throws IOException {
+        List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        while (items.hasNext()) {
+            batch.add(items.next());
+            if (batch.size() == BATCH_SIZE || !items.hasNext()) {
+                writeBatch(generator, batch, lines);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(JsonGenerator generator, List<Object> batch, boolean lines) throws IOException {
+        ObjectWriter batchWriter = writer;
+        for (BatchPreloader preloader : preloaders) {
+            batchWriter = preloader.preload(batchWriter, batch);
+        }
+        for (Object item : batch) {
+            batchWriter.writeValue(generator, item);
+            if (lines) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Массовая загрузка фильмов, пользователей, лайков и дружбы из NDJSON.
+ * Строки читаются пачками, разбираются и валидируются параллельно, а запись в хранилище идёт пачкой
+ * в порядке: пользователи, фильмы, лайки, дружба. Новые сущности получают id так же, как при POST;
+ * лайки и дружба пишутся пакетными операциями хранилища, сгруппированными по фильму и пользователю.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+    private static final int BATCH_SIZE = 10_000;
+    private final ObjectMapper objectMapper;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmValidator filmValidator;
+    private final UserValidator userValidator;
+
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        ImportReport report = new ImportReport();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>(BATCH_SIZE);
+            long firstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == BATCH_SIZE) {
+                    importBatch(lines, firstLine, report);
+                    firstLine += lines.size();
+                    lines.clear();
+                }
+            }
+            importBatch(lines, firstLine, report);
+        }
+        log.info("Импорт завершён: обработано {}, загружено {}, ошибок {}",
+                report.getProcessed(), report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private void importBatch(List<String> lines, long firstLine, ImportReport report) {
+        List<ParsedLine> parsed = IntStream.range(0, lines.size()).parallel()
+                .filter(i -> !lines.get(i).isBlank())
+                .mapToObj(i -> parse(firstLine + i, lines.get(i)))
+                .toList();
+        report.addProcessed(parsed.size());
+        Map<String, List<ParsedLine>> byType = new LinkedHashMap<>();
+        for (ParsedLine line : parsed) {
+            if (line.error() != null) {
+                report.addError(line.number(), line.error());
+            } else {
+                byType.computeIfAbsent(line.record().getType(), type -> new ArrayList<>()).add(line);
+            }
+        }
+        List<ParsedLine> users = uniqueUsers(byType.getOrDefault(ImportRecord.USER, List.of()), report);
+        report.addImported(userService.createAll(users.stream().map(line -> line.record().getUser()).toList()).size());
+        List<ParsedLine> films = byType.getOrDefault(ImportRecord.FILM, List.of());
+        report.addImported(filmService.createAll(films.stream().map(line -> line.record().getFilm()).toList()).size());
+        importLikes(byType.getOrDefault(ImportRecord.LIKE, List.of()), report);
+        importFriendships(byType.getOrDefault(ImportRecord.FRIENDSHIP, List.of()), report);
+    }
+
+    /**
+     * Отбрасывает пользователей, чей login или email уже занят в хранилище или строкой выше в этой пачке,
+     * чтобы одна такая строка не отменяла запись всей пачки. Ключи занимает только принятая строка.
+     */
+    private List<ParsedLine> uniqueUsers(List<ParsedLine> users, ImportReport report) {
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<ParsedLine> unique = new ArrayList<>(users.size());
+        for (ParsedLine line : users) {
+            User user = line.record().getUser();
+            if (logins.contains(user.getLogin()) || userStorage.findByLogin(user.getLogin()).isPresent()) {
+                report.addError(line.number(), "Пользователь с таким login уже существует");
+            } else if (emails.contains(user.getEmail()) || userStorage.findByEmail(user.getEmail()).isPresent()) {
+                report.addError(line.number(), "Пользователь с таким email уже существует");
+            } else {
+                logins.add(user.getLogin());
+                emails.add(user.getEmail());
+                unique.add(line);
+            }
+        }
+        return unique;
+    }
+
+    private void importLikes(List<ParsedLine> likes, ImportReport report) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        Set<Long> films = filmStorage.findAllById(likes.stream().map(line -> line.record().getFilmId())
+                        .collect(Collectors.toSet())).stream()
+                .map(Film::getId)
+                .collect(Collectors.toSet());
+        Set<Long> users = userStorage.findAllById(likes.stream().map(line -> line.record().getUserId())
+                        .collect(Collectors.toSet())).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Long>> valid = new HashMap<>();
+        for (ParsedLine line : likes) {
+            long filmId = line.record().getFilmId();
+            if (!films.contains(filmId)) {
+                report.addError(line.number(), "Фильм с таким id не найден");
+            } else if (!users.contains(line.record().getUserId())) {
+                report.addError(line.number(), "Пользователь с таким id не найден");
+            } else {
+                valid.computeIfAbsent(filmId, id -> new ArrayList<>()).add(line.record().getUserId());
+                report.addImported(1);
+            }
+        }
+        filmService.importLikes(toArrays(valid));
+    }
+
+    private void importFriendships(List<ParsedLine> friendships, ImportReport report) {
+        if (friendships.isEmpty()) {
+            return;
+        }
+        Set<Long> users = userStorage.findAllById(friendships.stream()
+                        .flatMap(line -> Stream.of(line.record().getUserId(), line.record().getFriendId()))
+                        .collect(Collectors.toSet())).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Long>> valid = new HashMap<>();
+        for (ParsedLine line : friendships) {
+            long userId = line.record().getUserId();
+            long friendId = line.record().getFriendId();
+            if (!users.contains(userId) || !users.contains(friendId)) {
+                report.addError(line.number(), "Не найден пользователь с таким id");
+            } else {
+                valid.computeIfAbsent(userId, id -> new ArrayList<>()).add(friendId);
+                report.addImported(1);
+            }
+        }
+        userService.importFriendships(toArrays(valid));
+    }
+
+    private static Map<Long, long[]> toArrays(Map<Long, List<Long>> grouped) {
+        Map<Long, long[]> arrays = new HashMap<>();
+        grouped.forEach((id, values) -> arrays.put(id, values.stream().mapToLong(Long::longValue).toArray()));
+        return arrays;
+    }
+
+    private ParsedLine parse(long number, String line) {
+        try {
+            ImportRecord record = objectMapper.readValue(line, ImportRecord.class);
+            validate(record);
+            return new ParsedLine(number, record, null);
+        } catch (JsonProcessingException e) {
+            return new ParsedLine(number, null, "Некорректный JSON: " + e.getOriginalMessage());
+        } catch (ValidationException e) {
+            return new ParsedLine(number, null, e.getMessage());
+        }
+    }
+
+    private void validate(ImportRecord record) {
+        String type = record.getType() == null ? "" : record.getType();
+        switch (type) {
+            case ImportRecord.FILM -> filmValidator.validate(record.getFilm());
+            case ImportRecord.USER -> userValidator.validate(record.getUser());
+            case ImportRecord.LIKE -> {
+                if (record.getFilmId() == null || record.getUserId() == null) {
+                    throw new ValidationException("Для лайка нужны filmId и userId");
+                }
+            }
+            case ImportRecord.FRIENDSHIP -> {
+                if (record.getUserId() == null || record.getFriendId() == null) {
+                    throw new ValidationException("Для дружбы нужны userId и friendId");
+                }
+            }
+            default -> throw new ValidationException("Неизвестный тип записи: " + record.getType());
+        }
+    }
+
+    private record ParsedLine(long number, ImportRecord record, String error) {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+@Data
+public class ImportRecord {
+    public static final String FILM = "film";
+    public static final String USER = "user";
+    public static final String LIKE = "like";
+    public static final String FRIENDSHIP = "friendship";
+
+    private String type;
+    private Film film;
+    private User user;
+    private Long filmId;
+    private Long userId;
+    private Long friendId;
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class ImportReport {
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private long processed;
+    private long imported;
+    private long failed;
+    private final List<LineError> errors = new ArrayList<>();
+
+    void addImported(long count) {
+        imported += count;
+    }
+
+    void addProcessed(long count) {
+        processed += count;
+    }
+
+    void addError(long line, String error) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new LineError(line, error));
+        }
+    }
+
+    public record LineError(long line, String error) {
+    }
+}
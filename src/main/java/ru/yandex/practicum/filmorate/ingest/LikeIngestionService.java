@@ -0,0 +1,265 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Асинхронный приём лайков для пиков нагрузки. События раскладываются по шардам по id фильма. У шарда
+ * неблокирующая очередь ограниченной ёмкости и карта последних намерений по паре «фильм — пользователь»:
+ * повтор пары, которую писатель ещё не применил, только перезаписывает намерение и места в очереди не занимает.
+ * Единственный писатель шарда применяет события пачками — как только их набралось {@code batch-size} или прошло
+ * {@code max-staleness}, поэтому чтения отстают от принятых лайков примерно на это время. Переполненный шард
+ * отклоняет новые пары с {@link OverloadedException}. Существование фильма и пользователя проверяется только
+ * при применении пачки: событие для несуществующего фильма или пользователя уже принято и просто отбрасывается.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(value = "filmorate.likes.ingestion.enabled", havingValue = "true")
+public class LikeIngestionService {
+    private static final long FLUSH_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final int batchSize;
+    private final long maxStalenessNanos;
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    public LikeIngestionService(FilmService filmService, UserService userService,
+                                @Value("${filmorate.likes.ingestion.shards:4}") int shards,
+                                @Value("${filmorate.likes.ingestion.queue-capacity:100000}") int queueCapacity,
+                                @Value("${filmorate.likes.ingestion.batch-size:1000}") int batchSize,
+                                @Value("${filmorate.likes.ingestion.max-staleness:100ms}") Duration maxStaleness) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.batchSize = batchSize;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.shards = new Shard[shards];
+        Arrays.setAll(this.shards, index -> new Shard(index, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : shards) {
+            shard.writer.start();
+        }
+    }
+
+    /**
+     * Перестаёт принимать события, дожидается применения уже принятых и останавливает писателей.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.writer);
+        }
+        for (Shard shard : shards) {
+            shard.writer.join();
+        }
+    }
+
+    public void like(long filmId, long userId) {
+        submit(filmId, userId, true);
+    }
+
+    public void unlike(long filmId, long userId) {
+        submit(filmId, userId, false);
+    }
+
+    /**
+     * Ждёт, пока писатели применят всё, что было принято до вызова.
+     */
+    public void flush() {
+        for (Shard shard : shards) {
+            long target = shard.accepted.get();
+            while (shard.applied.get() < target) {
+                LockSupport.unpark(shard.writer);
+                LockSupport.parkNanos(FLUSH_POLL_NANOS);
+            }
+        }
+    }
+
+    private void submit(long filmId, long userId, boolean like) {
+        if (!running) {
+            throw new OverloadedException("Приём лайков остановлен");
+        }
+        Shard shard = shards[(int) Math.floorMod(filmId, (long) shards.length)];
+        if (!shard.offer(new LikeKey(filmId, userId), like)) {
+            throw new OverloadedException("Очередь лайков переполнена, повторите запрос позже");
+        }
+    }
+
+    /**
+     * Применяет пачку итоговых намерений: пользователи читаются одним запросом, лайки и снятия лайков
+     * пишутся пакетными операциями, сгруппированными по фильму. Если пакетная запись упала, пачка применяется
+     * заново по одной паре, и теряются только пары, которые не применяются и поодиночке.
+     */
+    private void apply(Map<LikeKey, Boolean> batch) {
+        try {
+            applyBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось применить пачку из {} лайков, применяем по одному", batch.size(), e);
+            batch.forEach(this::applyOne);
+        }
+    }
+
+    private void applyBatch(Map<LikeKey, Boolean> batch) {
+        Set<Long> users = userService.getAllById(batch.keySet().stream().map(LikeKey::userId)
+                        .collect(Collectors.toSet())).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Long>> likes = new HashMap<>();
+        Map<Long, List<Long>> unlikes = new HashMap<>();
+        batch.forEach((key, like) -> {
+            if (!users.contains(key.userId())) {
+                log.debug("Лайк фильму {} от пользователя {} пропущен: пользователь не найден",
+                        key.filmId(), key.userId());
+            } else {
+                (like ? likes : unlikes).computeIfAbsent(key.filmId(), id -> new ArrayList<>()).add(key.userId());
+            }
+        });
+        filmService.addLikes(toArrays(likes));
+        filmService.removeLikes(toArrays(unlikes));
+    }
+
+    /**
+     * Повтор пары после сбоя пачки. Лайк и снятие идемпотентны, поэтому пары, которые пачка успела записать,
+     * повторно не считаются.
+     */
+    private void applyOne(LikeKey key, boolean like) {
+        try {
+            Optional<User> user = userService.getById(key.userId());
+            if (user.isEmpty()) {
+                log.debug("Лайк фильму {} от пользователя {} пропущен: пользователь не найден",
+                        key.filmId(), key.userId());
+            } else if (like) {
+                filmService.addLike(key.filmId(), user.get());
+            } else {
+                filmService.removeLike(key.filmId(), user.get());
+            }
+        } catch (NotFoundException e) {
+            log.debug("Лайк фильму {} от пользователя {} пропущен: {}", key.filmId(), key.userId(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Не удалось применить лайк фильму {} от пользователя {}", key.filmId(), key.userId(), e);
+        }
+    }
+
+    private static Map<Long, long[]> toArrays(Map<Long, List<Long>> grouped) {
+        Map<Long, long[]> arrays = new HashMap<>();
+        grouped.forEach((id, values) -> arrays.put(id, values.stream().mapToLong(Long::longValue).toArray()));
+        return arrays;
+    }
+
+    private record LikeKey(long filmId, long userId) {
+    }
+
+    private final class Shard implements Runnable {
+        private static final int COALESCED = 0;
+        private static final int QUEUED = 1;
+        private static final int REJECTED = 2;
+
+        private final Queue<LikeKey> queue = new ConcurrentLinkedQueue<>();
+        private final ConcurrentMap<LikeKey, Boolean> pending = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong applied = new AtomicLong();
+        private final int capacity;
+        private final Thread writer;
+
+        private Shard(int index, int capacity) {
+            this.capacity = capacity;
+            this.writer = new Thread(this, "like-ingestion-" + index);
+            writer.setDaemon(true);
+        }
+
+        /**
+         * Каждая пара в {@code pending} стоит в очереди ровно один раз: новая пара занимает место,
+         * повтор только меняет намерение.
+         */
+        private boolean offer(LikeKey key, boolean like) {
+            int[] outcome = new int[1];
+            pending.compute(key, (ignored, current) -> {
+                if (current != null) {
+                    outcome[0] = COALESCED;
+                    return like;
+                }
+                if (size.incrementAndGet() > capacity) {
+                    size.decrementAndGet();
+                    outcome[0] = REJECTED;
+                    return null;
+                }
+                outcome[0] = QUEUED;
+                return like;
+            });
+            if (outcome[0] == QUEUED) {
+                accepted.incrementAndGet();
+                queue.offer(key);
+                if (size.get() >= batchSize) {
+                    LockSupport.unpark(writer);
+                }
+            }
+            return outcome[0] != REJECTED;
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                if (running && size.get() < batchSize) {
+                    LockSupport.parkNanos(this, maxStalenessNanos);
+                }
+                drain();
+            }
+        }
+
+        /**
+         * Пара, снова принятая, пока пачка набиралась, встречается в ней дважды: побеждает последнее намерение.
+         * Пачка считается применённой только после того, как {@link #apply} записал её целиком или по одной паре.
+         */
+        private void drain() {
+            Map<LikeKey, Boolean> batch = new LinkedHashMap<>();
+            LikeKey key;
+            int drained = 0;
+            while (drained < batchSize && (key = queue.poll()) != null) {
+                Boolean like = pending.remove(key);
+                size.decrementAndGet();
+                if (like != null) {
+                    batch.put(key, like);
+                }
+                drained++;
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+            applied.addAndGet(drained);
+        }
+    }
+}
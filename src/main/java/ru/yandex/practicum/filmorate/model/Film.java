@@ -1,9 +1,12 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -13,14 +16,29 @@ public class Film implements AbstractModel {
     private String description;
     private LocalDate releaseDate;
     private Integer duration;
-    private Set<Long> likes = new HashSet<>();
+    private LongHashSet likes = new LongHashSet();
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likeCount;
 
-    public void addLike(Long userId) {
-        likes.add(userId);
+    public void setLikes(Set<Long> likes) {
+        this.likes = new LongHashSet(likes);
+        likeCount = this.likes.size();
     }
 
-    public void removeLike(Long userId) {
-        likes.remove(userId);
+    public boolean addLike(long userId) {
+        if (!likes.add(userId)) {
+            return false;
+        }
+        likeCount++;
+        return true;
     }
-}
 
+    public boolean removeLike(long userId) {
+        if (!likes.remove(userId)) {
+            return false;
+        }
+        likeCount--;
+        return true;
+    }
+}
@@ -4,27 +4,42 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.KeysetIterator;
 import ru.yandex.practicum.filmorate.validator.FilmValidator;
 
-import java.util.Comparator;
+import java.time.Year;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class FilmService {
+    private static final int EXPORT_PAGE_SIZE = 1_000;
     private final FilmStorage storage;
     private final FilmValidator validator;
+    private final RecommendationService recommendationService;
+    private final TrendingService trendingService;
+    private final SearchService searchService;
 
     public List<Film> list() {
         return storage.findAll();
     }
 
+    public List<Film> list(long after, int limit) {
+        return storage.findPage(after, limit);
+    }
+
+    public Iterator<Film> iterateAll() {
+        return new KeysetIterator<>(storage::findPage, EXPORT_PAGE_SIZE);
+    }
+
     public Optional<Film> getById(Long id) {
         return storage.findById(id);
     }
@@ -32,7 +47,20 @@ public class FilmService {
     public Film create(Film film) {
         validator.validate(film);
         film.setId(null);
-        return storage.save(film);
+        Film saved = storage.save(film);
+        recommendationService.filmSaved(saved);
+        searchService.filmSaved(saved);
+        return saved;
+    }
+
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(film -> film.setId(null));
+        List<Film> saved = storage.saveAll(films);
+        saved.forEach(film -> {
+            recommendationService.filmSaved(film);
+            searchService.filmSaved(film);
+        });
+        return saved;
     }
 
     public Film update(Film film) {
@@ -40,26 +68,91 @@ public class FilmService {
         if (film.getId() == null || storage.findById(film.getId()).isEmpty()) {
             throw new NotFoundException("Такого Id не существует");
         }
-        return storage.save(film);
+        Film saved = storage.save(film);
+        recommendationService.filmSaved(saved);
+        searchService.filmSaved(saved);
+        return saved;
     }
 
     public void delete(Long id) {
         storage.delete(id);
+        recommendationService.filmDeleted(id);
+        trendingService.filmDeleted(id);
+        searchService.filmDeleted(id);
     }
 
     public void addLike(Long filmId, User user) {
-        Film film = storage.findById(filmId).orElseThrow(() -> new NotFoundException("Фильма с таким id не найдено"));
-        film.addLike(user.getId());
+        if (storage.addLike(filmId, user.getId())) {
+            recommendationService.likeAdded(filmId, user.getId());
+            trendingService.likeAdded(filmId);
+            searchService.likeAdded(filmId);
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #addLike} для писателя очереди лайков: пользователи уже проверены.
+     *
+     * @param likes id пользователей по id фильма; фильмы, которых нет, пропускаются
+     */
+    public void addLikes(Map<Long, long[]> likes) {
+        storage.addLikes(likes).forEach((filmId, userIds) -> {
+            for (long userId : userIds) {
+                recommendationService.likeAdded(filmId, userId);
+            }
+            trendingService.likesAdded(filmId, userIds.length);
+            searchService.likesAdded(filmId, userIds.length);
+        });
+    }
+
+    /**
+     * Лайки из массовой загрузки, записанные одной пачкой: рейтинг за период их не учитывает, как и раньше,
+     * а рекомендации и поиск узнают только о лайках, которых ещё не было.
+     *
+     * @param likes id пользователей по id фильма; фильмы, которых нет, пропускаются
+     */
+    public void importLikes(Map<Long, long[]> likes) {
+        storage.addLikes(likes).forEach((filmId, userIds) -> {
+            for (long userId : userIds) {
+                recommendationService.likeAdded(filmId, userId);
+            }
+            searchService.likesAdded(filmId, userIds.length);
+        });
     }
 
     public void removeLike(Long filmId, User user) {
-        Film film = storage.findById(filmId).orElseThrow(() -> new NotFoundException("Фильма с таким id не найдено"));
-        film.removeLike(user.getId());
+        if (storage.removeLike(filmId, user.getId())) {
+            recommendationService.likeRemoved(filmId, user.getId());
+            trendingService.likeRemoved(filmId);
+            searchService.likeRemoved(filmId);
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #removeLike} для писателя очереди лайков.
+     *
+     * @param likes id пользователей по id фильма; фильмы, которых нет, пропускаются
+     */
+    public void removeLikes(Map<Long, long[]> likes) {
+        storage.removeLikes(likes).forEach((filmId, userIds) -> {
+            for (long userId : userIds) {
+                recommendationService.likeRemoved(filmId, userId);
+            }
+            trendingService.likesRemoved(filmId, userIds.length);
+            searchService.likesRemoved(filmId, userIds.length);
+        });
     }
 
     public List<Film> getMostPopularFilms(Integer count) {
-        return storage.findAll().stream()
-                .sorted(Comparator.comparing((Film film) -> film.getLikes().size()).reversed())
-                .limit(count).collect(Collectors.toList());
+        return storage.findMostPopular(count);
+    }
+
+    public List<Film> getMostPopularFilms(Integer count, Integer releaseYear) {
+        if (releaseYear <= 0) {
+            throw new ValidationException("year должен быть положительным");
+        }
+        if (releaseYear >= Year.MAX_VALUE) {
+            throw new ValidationException("year должен быть меньше " + Year.MAX_VALUE);
+        }
+        return storage.findMostPopular(count, releaseYear);
     }
 }
\ No newline at end of file
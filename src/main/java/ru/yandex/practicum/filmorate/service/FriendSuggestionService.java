@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Друзья друзей, упорядоченные по числу общих друзей. Обход ограничен: у пользователя и у каждого его друга
+ * берётся не больше {@code max-fan-out} соседей равномерной выборкой, поэтому время ответа не растёт
+ * со степенью вершины, а для таких пользователей число общих друзей приблизительное. Второй круг считается
+ * параллельно, если друзей не меньше {@code parallel-threshold}: у каждой задачи свой счётчик.
+ * Ответ кешируется на пользователя и сбрасывается при изменении дружбы у него или у его друзей.
+ */
+@Service
+public class FriendSuggestionService {
+    public static final int MAX_COUNT = 100;
+    private static final int EXPECTED_DEGREE = 16;
+    private static final int MAX_PRESIZED_CANDIDATES = 1 << 18;
+
+    private final FriendshipStorage storage;
+    private final int maxFanOut;
+    private final int parallelThreshold;
+    private final Cache<Long, long[]> cache;
+
+    public FriendSuggestionService(FriendshipStorage storage,
+                                   @Value("${filmorate.suggestions.max-fan-out:1000}") int maxFanOut,
+                                   @Value("${filmorate.suggestions.parallel-threshold:64}") int parallelThreshold,
+                                   @Value("${filmorate.suggestions.cache-size:10000}") long cacheSize,
+                                   @Value("${filmorate.suggestions.cache-ttl:10m}") Duration cacheTtl) {
+        this.storage = storage;
+        this.maxFanOut = maxFanOut;
+        this.parallelThreshold = parallelThreshold;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * @return id рекомендованных пользователей, не больше {@link #MAX_COUNT}
+     */
+    public long[] suggest(long userId, int count) {
+        long[] ranked = cache.get(userId, this::rank);
+        return ranked.length <= count ? ranked : Arrays.copyOf(ranked, count);
+    }
+
+    /**
+     * Сбрасывает рекомендации всех, чей второй круг мог измениться вместе с дружбой этих двух пользователей.
+     */
+    public void invalidate(long userId, long friendId) {
+        cache.invalidate(userId);
+        cache.invalidate(friendId);
+        for (long neighbor : storage.findFriendIds(userId)) {
+            cache.invalidate(neighbor);
+        }
+        for (long neighbor : storage.findFriendIds(friendId)) {
+            cache.invalidate(neighbor);
+        }
+    }
+
+    private long[] rank(long userId) {
+        long[] friends = storage.findFriendIds(userId);
+        long[] sampled = sample(friends);
+        LongStream hop = Arrays.stream(sampled);
+        if (sampled.length >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1) {
+            hop = hop.parallel();
+        }
+        int expectedCandidates = Math.min(sampled.length * EXPECTED_DEGREE, MAX_PRESIZED_CANDIDATES);
+        LongIntCounter mutualFriends = hop.collect(() -> new LongIntCounter(expectedCandidates),
+                (counter, friendId) -> {
+                    for (long candidate : sample(storage.findFriendIds(friendId))) {
+                        counter.increment(candidate);
+                    }
+                }, LongIntCounter::merge);
+        TopK top = new TopK(MAX_COUNT);
+        mutualFriends.forEach((candidate, count) -> {
+            if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                top.offer(candidate, count);
+            }
+        });
+        return top.drain();
+    }
+
+    private long[] sample(long[] neighbors) {
+        if (neighbors.length <= maxFanOut) {
+            return neighbors;
+        }
+        long[] sampled = new long[maxFanOut];
+        double step = (double) neighbors.length / maxFanOut;
+        for (int i = 0; i < maxFanOut; i++) {
+            sampled[i] = neighbors[(int) (i * step)];
+        }
+        return sampled;
+    }
+}
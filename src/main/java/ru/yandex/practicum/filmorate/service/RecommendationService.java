@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.util.KeysetIterator;
+import ru.yandex.practicum.filmorate.util.SortedArrays;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рекомендации фильмов по лайкам похожих пользователей (см. {@link LikeIndex#recommend}).
+ * Индекс строится из хранилища при первом запросе и дальше поддерживается {@link FilmService}.
+ * Ответ кешируется на пользователя и сбрасывается при изменении его собственных лайков;
+ * изменения у соседей доходят до него по истечении {@code cache-ttl}.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+    public static final int MAX_COUNT = 100;
+    private static final int BOOTSTRAP_PAGE_SIZE = 1_000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final int neighbors;
+    private final int maxFanOut;
+    private final Cache<Long, long[]> cache;
+    private final LikeIndex index = new LikeIndex();
+    private final ReadWriteLock bootstrapLock = new ReentrantReadWriteLock();
+    private volatile boolean bootstrapped;
+
+    public RecommendationService(FilmStorage filmStorage, UserStorage userStorage,
+                                 @Value("${filmorate.recommendations.neighbors:50}") int neighbors,
+                                 @Value("${filmorate.recommendations.max-fan-out:1000}") int maxFanOut,
+                                 @Value("${filmorate.recommendations.cache-size:10000}") long cacheSize,
+                                 @Value("${filmorate.recommendations.cache-ttl:10m}") Duration cacheTtl) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.neighbors = neighbors;
+        this.maxFanOut = maxFanOut;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public List<Film> recommend(Long userId, int count) {
+        userStorage.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
+        if (count <= 0) {
+            throw new ValidationException("count должен быть положительным");
+        }
+        bootstrap();
+        long[] ranked = cache.get(userId, id -> index.recommend(id, neighbors, maxFanOut, MAX_COUNT));
+        int limit = Math.min(count, ranked.length);
+        return filmStorage.findAllById(SortedArrays.boxed(Arrays.copyOf(ranked, limit)));
+    }
+
+    public void likeAdded(long filmId, long userId) {
+        update(() -> index.add(filmId, userId));
+        cache.invalidate(userId);
+    }
+
+    public void likeRemoved(long filmId, long userId) {
+        update(() -> index.remove(filmId, userId));
+        cache.invalidate(userId);
+    }
+
+    public void filmSaved(Film film) {
+        update(() -> index.replace(film.getId(), film.getLikes()));
+        film.getLikes().forEach(cache::invalidate);
+    }
+
+    public void filmDeleted(long filmId) {
+        update(() -> index.removeFilm(filmId));
+    }
+
+    /**
+     * Изменения до построения индекса пропускаются: построение прочитает их из хранилища.
+     */
+    private void update(Runnable change) {
+        Lock lock = bootstrapLock.readLock();
+        lock.lock();
+        try {
+            if (bootstrapped) {
+                change.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void bootstrap() {
+        if (bootstrapped) {
+            return;
+        }
+        Lock lock = bootstrapLock.writeLock();
+        lock.lock();
+        try {
+            if (bootstrapped) {
+                return;
+            }
+            Iterator<Film> films = new KeysetIterator<>(filmStorage::findPage, BOOTSTRAP_PAGE_SIZE);
+            while (films.hasNext()) {
+                Film film = films.next();
+                index.replace(film.getId(), film.getLikes());
+            }
+            bootstrapped = true;
+            log.info("Индекс лайков для рекомендаций построен: {} лайков", index.likes());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.SearchIndex;
+import ru.yandex.practicum.filmorate.util.KeysetIterator;
+import ru.yandex.practicum.filmorate.util.SortedArrays;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый поиск фильмов по {@link SearchIndex}. Индекс строится из хранилища при первом запросе
+ * и дальше поддерживается {@link FilmService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    public static final int MAX_COUNT = 100;
+    private static final int BOOTSTRAP_PAGE_SIZE = 1_000;
+
+    private final FilmStorage filmStorage;
+    private final SearchIndex index = new SearchIndex();
+    private final ReadWriteLock bootstrapLock = new ReentrantReadWriteLock();
+    private volatile boolean bootstrapped;
+
+    public List<Film> search(String query, int count) {
+        if (query == null || SearchIndex.tokenize(query).isEmpty()) {
+            throw new ValidationException("Запрос должен содержать хотя бы одно слово");
+        }
+        if (count <= 0) {
+            throw new ValidationException("count должен быть положительным");
+        }
+        bootstrap();
+        return filmStorage.findAllById(SortedArrays.boxed(index.search(query, Math.min(count, MAX_COUNT))));
+    }
+
+    public void filmSaved(Film film) {
+        update(() -> index.put(film.getId(), film.getName(), film.getDescription(), film.getLikeCount()));
+    }
+
+    public void filmDeleted(long filmId) {
+        update(() -> index.remove(filmId));
+    }
+
+    public void likeAdded(long filmId) {
+        update(() -> index.addLikes(filmId, 1));
+    }
+
+    public void likesAdded(long filmId, int count) {
+        update(() -> index.addLikes(filmId, count));
+    }
+
+    public void likeRemoved(long filmId) {
+        update(() -> index.addLikes(filmId, -1));
+    }
+
+    public void likesRemoved(long filmId, int count) {
+        update(() -> index.addLikes(filmId, -count));
+    }
+
+    /**
+     * Изменения до построения индекса пропускаются: построение прочитает их из хранилища.
+     */
+    private void update(Runnable change) {
+        Lock lock = bootstrapLock.readLock();
+        lock.lock();
+        try {
+            if (bootstrapped) {
+                change.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void bootstrap() {
+        if (bootstrapped) {
+            return;
+        }
+        Lock lock = bootstrapLock.writeLock();
+        lock.lock();
+        try {
+            if (bootstrapped) {
+                return;
+            }
+            Iterator<Film> films = new KeysetIterator<>(filmStorage::findPage, BOOTSTRAP_PAGE_SIZE);
+            while (films.hasNext()) {
+                Film film = films.next();
+                index.put(film.getId(), film.getName(), film.getDescription(), film.getLikeCount());
+            }
+            bootstrapped = true;
+            log.info("Поисковый индекс построен: {} фильмов", index.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.SlidingWindowCounter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Популярные фильмы за последний час, сутки или неделю. Лайки и их отмены, прошедшие через {@link FilmService},
+ * учитываются в скользящих окнах; отмена уменьшает счёт окна, даже если сам лайк был поставлен раньше.
+ * Окна живут только в памяти и после перезапуска набираются заново.
+ */
+@Service
+public class TrendingService {
+    private final FilmStorage filmStorage;
+    private final Clock clock;
+    private final Map<Window, SlidingWindowCounter> counters = new EnumMap<>(Window.class);
+
+    @Autowired
+    public TrendingService(FilmStorage filmStorage) {
+        this(filmStorage, Clock.systemUTC());
+    }
+
+    public TrendingService(FilmStorage filmStorage, Clock clock) {
+        this.filmStorage = filmStorage;
+        this.clock = clock;
+        for (Window window : Window.values()) {
+            counters.put(window, new SlidingWindowCounter(window.length, window.buckets));
+        }
+    }
+
+    public List<Film> getTrendingFilms(Window window, int count) {
+        return filmStorage.findAllById(counters.get(window).top(count, clock.millis()));
+    }
+
+    public void likeAdded(long filmId) {
+        record(filmId, 1);
+    }
+
+    public void likeRemoved(long filmId) {
+        record(filmId, -1);
+    }
+
+    public void likesAdded(long filmId, int count) {
+        record(filmId, count);
+    }
+
+    public void likesRemoved(long filmId, int count) {
+        record(filmId, -count);
+    }
+
+    public void filmDeleted(long filmId) {
+        counters.values().forEach(counter -> counter.remove(filmId));
+    }
+
+    private void record(long filmId, int delta) {
+        long now = clock.millis();
+        counters.values().forEach(counter -> counter.add(filmId, delta, now));
+    }
+
+    public enum Window {
+        HOUR("1h", Duration.ofHours(1), 60),
+        DAY("24h", Duration.ofDays(1), 96),
+        WEEK("7d", Duration.ofDays(7), 168);
+
+        private final String code;
+        private final Duration length;
+        private final int buckets;
+
+        Window(String code, Duration length, int buckets) {
+            this.code = code;
+            this.length = length;
+            this.buckets = buckets;
+        }
+
+        public static Window parse(String code) {
+            return Arrays.stream(values())
+                    .filter(window -> window.code.equals(code))
+                    .findFirst()
+                    .orElseThrow(() -> new ValidationException("window должен быть одним из: 1h, 24h, 7d"));
+        }
+    }
+}
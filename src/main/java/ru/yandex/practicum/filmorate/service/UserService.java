@@ -4,8 +4,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.KeysetIterator;
+import ru.yandex.practicum.filmorate.util.SortedArrays;
 import ru.yandex.practicum.filmorate.validator.UserValidator;
 
 import java.util.*;
@@ -14,17 +18,41 @@ import java.util.*;
 @RequiredArgsConstructor
 @Service
 public class UserService {
+    private static final int EXPORT_PAGE_SIZE = 1_000;
     private final UserStorage storage;
+    private final FriendshipStorage friendshipStorage;
+    private final FriendSuggestionService suggestionService;
     private final UserValidator validator;
 
     public List<User> list() {
         return storage.findAll();
     }
 
+    public List<User> list(long after, int limit) {
+        return storage.findPage(after, limit);
+    }
+
+    public Iterator<User> iterateAll() {
+        return new KeysetIterator<>(storage::findPage, EXPORT_PAGE_SIZE);
+    }
+
     public Optional<User> getById(Long id) {
         return storage.findById(id);
     }
 
+    public List<User> getAllById(Collection<Long> ids) {
+        return storage.findAllById(ids);
+    }
+
+    public Optional<User> getByLogin(String login) {
+        return storage.findByLogin(login);
+    }
+
+    public List<User> getFriends(Long id) {
+        storage.findById(id).orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
+        return storage.findAllById(SortedArrays.boxed(friendshipStorage.findFriendIds(id)));
+    }
+
     public User create(User user) {
         validator.validate(user);
         processName(user);
@@ -32,6 +60,14 @@ public class UserService {
         return storage.save(user);
     }
 
+    public List<User> createAll(List<User> users) {
+        users.forEach(user -> {
+            processName(user);
+            user.setId(null);
+        });
+        return storage.saveAll(users);
+    }
+
     public User update(User user) {
         validator.validate(user);
         if (user.getId() == null || storage.findById(user.getId()).isEmpty()) {
@@ -42,36 +78,53 @@ public class UserService {
     }
 
     public void makeFriendship(Long firstUserId, Long secondUserId) {
-        User firstUser = storage.findById(firstUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        User secondUser = storage.findById(secondUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        firstUser.addFriend(secondUserId);
-        secondUser.addFriend(firstUserId);
+        requireUser(firstUserId);
+        requireUser(secondUserId);
+        if (friendshipStorage.addFriend(firstUserId, secondUserId)) {
+            suggestionService.invalidate(firstUserId, secondUserId);
+        }
+    }
+
+    /**
+     * Дружба из массовой загрузки, записанная одной пачкой: пользователи уже проверены, а кэш рекомендаций
+     * сбрасывается только для дружбы, которой ещё не было.
+     *
+     * @param friendships id друзей по id пользователя
+     */
+    public void importFriendships(Map<Long, long[]> friendships) {
+        friendshipStorage.addFriends(friendships).forEach((userId, friendIds) -> {
+            for (long friendId : friendIds) {
+                suggestionService.invalidate(userId, friendId);
+            }
+        });
     }
 
     public void ruinFriendship(Long firstUserId, Long secondUserId) {
-        User firstUser = storage.findById(firstUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        User secondUser = storage.findById(secondUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        firstUser.removeFriend(secondUserId);
-        secondUser.removeFriend(firstUserId);
+        requireUser(firstUserId);
+        requireUser(secondUserId);
+        if (friendshipStorage.removeFriend(firstUserId, secondUserId)) {
+            suggestionService.invalidate(firstUserId, secondUserId);
+        }
     }
 
     public Collection<User> findCommonFriends(Long firstUserId, Long secondUserId) {
-        User firstUser = storage.findById(firstUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        User secondUser = storage.findById(secondUserId).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
-        Set<User> commonFriends = new HashSet<>();
-        Set<Long> firstUserFriends = firstUser.getFriends();
-        Set<Long> secondUserFriends = secondUser.getFriends();
-        commonFriends.addAll(firstUserFriends.stream()
-                .filter(friend -> secondUserFriends.contains(friend))
-                .filter(id -> storage.findById(id).isPresent())
-                .map(id -> storage.findById(id).get())
-                .toList());
-        commonFriends.addAll(secondUserFriends.stream()
-                .filter(friend -> firstUserFriends.contains(friend))
-                .filter(id -> storage.findById(id).isPresent())
-                .map(id -> storage.findById(id).get())
-                .toList());
-        return commonFriends;
+        requireUser(firstUserId);
+        requireUser(secondUserId);
+        return storage.findAllById(SortedArrays.boxed(SortedArrays.intersect(
+                friendshipStorage.findFriendIds(firstUserId), friendshipStorage.findFriendIds(secondUserId))));
+    }
+
+    public List<User> getFriendSuggestions(Long id, int count) {
+        requireUser(id);
+        if (count <= 0) {
+            throw new ValidationException("count должен быть положительным");
+        }
+        return storage.findAllById(SortedArrays.boxed(suggestionService.suggest(id,
+                Math.min(count, FriendSuggestionService.MAX_COUNT))));
+    }
+
+    private void requireUser(Long id) {
+        storage.findById(id).orElseThrow(() -> new NotFoundException("Не найден пользователь с таким id"));
     }
 
     private void processName(User user) {
@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FilmStorage {
@@ -11,7 +13,45 @@ public interface FilmStorage {
 
     Optional<Film> findById(Long id);
 
+    List<Film> findAllById(Collection<Long> ids);
+
+    List<Film> findPage(long after, int limit);
+
+    List<Film> findMostPopular(int count);
+
+    List<Film> findMostPopular(int count, int releaseYear);
+
     Film save(Film film);
 
+    List<Film> saveAll(Collection<Film> films);
+
     void delete(Long id);
+
+    /**
+     * @return true, если лайка ещё не было
+     * @throws ru.yandex.practicum.filmorate.exception.NotFoundException если фильма нет
+     */
+    boolean addLike(long filmId, long userId);
+
+    /**
+     * Пакетный вариант {@link #addLike}. Фильмы, которых нет, пропускаются.
+     *
+     * @param likes id пользователей по id фильма
+     * @return id пользователей, чьих лайков ещё не было, по id фильма; фильмы без новых лайков не попадают
+     */
+    Map<Long, long[]> addLikes(Map<Long, long[]> likes);
+
+    /**
+     * @return true, если лайк был
+     * @throws ru.yandex.practicum.filmorate.exception.NotFoundException если фильма нет
+     */
+    boolean removeLike(long filmId, long userId);
+
+    /**
+     * Пакетный вариант {@link #removeLike}. Фильмы, которых нет, пропускаются.
+     *
+     * @param likes id пользователей по id фильма
+     * @return id пользователей, чьи лайки были, по id фильма; фильмы без снятых лайков не попадают
+     */
+    Map<Long, long[]> removeLikes(Map<Long, long[]> likes);
 }
\ No newline at end of file
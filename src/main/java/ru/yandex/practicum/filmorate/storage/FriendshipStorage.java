@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface FriendshipStorage {
+
+    boolean addFriend(long userId, long friendId);
+
+    boolean removeFriend(long userId, long friendId);
+
+    /**
+     * Пакетный вариант {@link #addFriend}.
+     *
+     * @param friendships id друзей по id пользователя
+     * @return id новых друзей по id пользователя; уже существовавшая дружба в результат не попадает
+     */
+    Map<Long, long[]> addFriends(Map<Long, long[]> friendships);
+
+    /**
+     * @return id друзей пользователя по возрастанию
+     */
+    long[] findFriendIds(long userId);
+
+    /**
+     * @return id друзей по возрастанию для каждого из пользователей, в том числе пустые массивы
+     */
+    Map<Long, long[]> findFriendIds(Collection<Long> userIds);
+}
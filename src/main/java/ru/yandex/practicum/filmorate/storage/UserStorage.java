@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,7 +12,17 @@ public interface UserStorage {
 
     Optional<User> findById(Long id);
 
+    List<User> findAllById(Collection<Long> ids);
+
+    List<User> findPage(long after, int limit);
+
+    Optional<User> findByLogin(String login);
+
+    Optional<User> findByEmail(String email);
+
     User save(User user);
 
+    List<User> saveAll(Collection<User> users);
+
     void delete(Long id);
 }
\ No newline at end of file
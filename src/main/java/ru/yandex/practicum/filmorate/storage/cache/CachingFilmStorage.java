@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш хранит собственные копии сущностей и на каждое чтение отдаёт новую копию, поэтому изменения,
+ * которые вызывающий код вносит в полученный объект, не попадают в кэш.
+ */
+@RequiredArgsConstructor
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final Cache<Long, Film> cache;
+
+    @Override
+    public List<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        Film cached = cache.get(id, key -> delegate.findById(key).map(CachingFilmStorage::copy).orElse(null));
+        return Optional.ofNullable(cached).map(CachingFilmStorage::copy);
+    }
+
+    /**
+     * Промахи читаются из хранилища одним запросом и в кэш не кладутся: пакетная загрузка не атомарна по ключам,
+     * и значение, прочитанное до параллельной записи, вернулось бы в кэш уже после её сброса.
+     */
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        Map<Long, Film> cached = cache.getAllPresent(ids);
+        List<Long> missing = ids.stream().filter(id -> !cached.containsKey(id)).distinct().toList();
+        Map<Long, Film> loaded = missing.isEmpty() ? Map.of() : delegate.findAllById(missing).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = cached.get(id);
+            if (film != null) {
+                films.add(copy(film));
+            } else if (loaded.containsKey(id)) {
+                films.add(loaded.get(id));
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count) {
+        return delegate.findMostPopular(count);
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count, int releaseYear) {
+        return delegate.findMostPopular(count, releaseYear);
+    }
+
+    @Override
+    public List<Film> findPage(long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Film save(Film film) {
+        try {
+            return delegate.save(film);
+        } finally {
+            if (film.getId() != null) {
+                cache.invalidate(film.getId());
+            }
+        }
+    }
+
+    @Override
+    public List<Film> saveAll(Collection<Film> films) {
+        try {
+            return delegate.saveAll(films);
+        } finally {
+            cache.invalidateAll(films.stream().map(Film::getId).filter(Objects::nonNull).toList());
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        try {
+            return delegate.addLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public Map<Long, long[]> addLikes(Map<Long, long[]> likes) {
+        try {
+            return delegate.addLikes(likes);
+        } finally {
+            cache.invalidateAll(likes.keySet());
+        }
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        try {
+            return delegate.removeLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public Map<Long, long[]> removeLikes(Map<Long, long[]> likes) {
+        try {
+            return delegate.removeLikes(likes);
+        } finally {
+            cache.invalidateAll(likes.keySet());
+        }
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setLikes(film.getLikes());
+        return copy;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш хранит собственные копии сущностей и на каждое чтение отдаёт новую копию, поэтому изменения,
+ * которые вызывающий код вносит в полученный объект, не попадают в кэш.
+ */
+@RequiredArgsConstructor
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final Cache<Long, User> cache;
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        User cached = cache.get(id, key -> delegate.findById(key).map(CachingUserStorage::copy).orElse(null));
+        return Optional.ofNullable(cached).map(CachingUserStorage::copy);
+    }
+
+    /**
+     * Промахи читаются из хранилища одним запросом и в кэш не кладутся: пакетная загрузка не атомарна по ключам,
+     * и значение, прочитанное до параллельной записи, вернулось бы в кэш уже после её сброса.
+     */
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        Map<Long, User> cached = cache.getAllPresent(ids);
+        List<Long> missing = ids.stream().filter(id -> !cached.containsKey(id)).distinct().toList();
+        Map<Long, User> loaded = missing.isEmpty() ? Map.of() : delegate.findAllById(missing).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = cached.get(id);
+            if (user != null) {
+                users.add(copy(user));
+            } else if (loaded.containsKey(id)) {
+                users.add(loaded.get(id));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return delegate.findByLogin(login);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public User save(User user) {
+        try {
+            return delegate.save(user);
+        } finally {
+            if (user.getId() != null) {
+                cache.invalidate(user.getId());
+            }
+        }
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        try {
+            return delegate.saveAll(users);
+        } finally {
+            cache.invalidateAll(users.stream().map(User::getId).filter(Objects::nonNull).toList());
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый граф в формате compressed sparse row: соседи вершины {@code v} лежат отсортированными
+ * в {@code targets[offsets[v] .. offsets[v + 1])}. Вершина — это id пользователя, ребро занимает 4 байта.
+ */
+public record Csr(int[] offsets, int[] targets) {
+    public static final Csr EMPTY = new Csr(new int[1], new int[0]);
+
+    public int nodes() {
+        return offsets.length - 1;
+    }
+
+    public int edges() {
+        return targets.length;
+    }
+
+    public int degree(int node) {
+        return node < nodes() ? offsets[node + 1] - offsets[node] : 0;
+    }
+
+    public boolean contains(int node, int target) {
+        return node < nodes() && Arrays.binarySearch(targets, offsets[node], offsets[node + 1], target) >= 0;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+/**
+ * Журнал изменений графа: записи делаются под блокировками вершин, подтверждение ждётся после их снятия.
+ */
+public interface EdgeLog {
+    EdgeLog NONE = new EdgeLog() {
+        @Override
+        public long logAdd(long userId, long friendId) {
+            return 0;
+        }
+
+        @Override
+        public long logRemove(long userId, long friendId) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long ticket) {
+        }
+    };
+
+    long logAdd(long userId, long friendId);
+
+    long logRemove(long userId, long friendId);
+
+    void awaitDurable(long ticket);
+}
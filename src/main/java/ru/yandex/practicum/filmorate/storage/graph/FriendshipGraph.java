@@ -0,0 +1,367 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Неориентированный граф дружбы. Основная часть рёбер лежит в неизменяемом {@link Csr}, свежие изменения —
+ * в слое дельт по вершинам. Когда дельт накапливается больше восьмой части графа, фоновое уплотнение
+ * «замораживает» текущий слой, сливает его с CSR в новый массив и подменяет основу; записи в это время
+ * идут в новый слой. Чтение соседей вершины: CSR, поверх — замороженный слой, поверх — текущий.
+ */
+public class FriendshipGraph {
+    private static final int STRIPES = 64;
+    private static final int MIN_COMPACTION_DELTA = 1 << 16;
+    private static final long[] NONE = new long[0];
+
+    private final ReadWriteLock freezeLock = new ReentrantReadWriteLock();
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private volatile Layers layers = new Layers(Csr.EMPTY, Map.of(), new ConcurrentHashMap<>());
+    private volatile EdgeLog log = EdgeLog.NONE;
+
+    public FriendshipGraph() {
+        Arrays.setAll(stripes, i -> new Object());
+    }
+
+    public boolean addFriend(long userId, long friendId) {
+        return change(userId, friendId, true);
+    }
+
+    public boolean removeFriend(long userId, long friendId) {
+        return change(userId, friendId, false);
+    }
+
+    /**
+     * Пакетный вариант {@link #addFriend}: блокировка заморозки берётся один раз на пачку,
+     * подтверждение журнала ждётся тоже один раз.
+     *
+     * @param friendships id друзей по id пользователя
+     * @return id новых друзей по id пользователя; уже существовавшая дружба в результат не попадает
+     */
+    public Map<Long, long[]> addFriends(Map<Long, long[]> friendships) {
+        EdgeLog log = this.log;
+        Map<Long, long[]> added = new HashMap<>();
+        long[] ticket = new long[1];
+        int changes = 0;
+        Lock lock = freezeLock.readLock();
+        lock.lock();
+        try {
+            for (Map.Entry<Long, long[]> entry : friendships.entrySet()) {
+                long[] applied = new long[entry.getValue().length];
+                int size = 0;
+                for (long friendId : entry.getValue()) {
+                    if (apply(entry.getKey(), friendId, true, log, ticket)) {
+                        applied[size++] = friendId;
+                    }
+                }
+                if (size > 0) {
+                    added.put(entry.getKey(), Arrays.copyOf(applied, size));
+                    changes += size;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.awaitDurable(ticket[0]);
+        if (changes > 0) {
+            scheduleCompaction(changes);
+        }
+        return added;
+    }
+
+    /**
+     * @return id друзей по возрастанию
+     */
+    public long[] findFriendIds(long userId) {
+        if (userId < 0 || userId >= Integer.MAX_VALUE) {
+            return NONE;
+        }
+        int node = (int) userId;
+        Layers current = layers;
+        NodeDelta frozen = current.frozen().get(node);
+        long[] added;
+        long[] removed;
+        synchronized (stripe(node)) {
+            NodeDelta active = current.active().get(node);
+            if (frozen == null && active == null) {
+                return baseNeighbors(current.base(), node);
+            }
+            added = active == null ? NONE : active.added.toLongArray();
+            removed = active == null ? NONE : active.removed.toLongArray();
+        }
+        Arrays.sort(added);
+        Arrays.sort(removed);
+        return merge(current.base(), node, frozen, added, removed);
+    }
+
+    public int degree(long userId) {
+        if (userId < 0 || userId >= Integer.MAX_VALUE) {
+            return 0;
+        }
+        Layers current = layers;
+        int node = (int) userId;
+        if (current.frozen().isEmpty() && !current.active().containsKey(node)) {
+            return current.base().degree(node);
+        }
+        return findFriendIds(userId).length;
+    }
+
+    public long edges() {
+        return layers.base().edges();
+    }
+
+    public void attachLog(EdgeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Подключает готовый CSR как основу пустого графа.
+     */
+    public void load(Csr base) {
+        Layers current = layers;
+        if (current.base().edges() > 0 || !current.frozen().isEmpty() || !current.active().isEmpty()) {
+            throw new IllegalStateException("Основу можно загрузить только в пустой граф");
+        }
+        layers = new Layers(base, Map.of(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Сливает слой дельт с CSR.
+     *
+     * @param onFreeze выполняется в момент заморозки, когда изменения графа остановлены:
+     *                 результат уплотнения содержит ровно те изменения, что были сделаны до этого момента
+     * @return новая основа графа
+     */
+    public synchronized Csr compact(Runnable onFreeze) {
+        Layers frozenLayers;
+        Lock lock = freezeLock.writeLock();
+        lock.lock();
+        try {
+            onFreeze.run();
+            Layers current = layers;
+            frozenLayers = new Layers(current.base(), current.active(), new ConcurrentHashMap<>());
+            layers = frozenLayers;
+            pendingChanges.set(0);
+        } finally {
+            lock.unlock();
+        }
+        Csr compacted = frozenLayers.frozen().isEmpty() ? frozenLayers.base()
+                : rebuild(frozenLayers.base(), frozenLayers.frozen());
+        layers = new Layers(compacted, Map.of(), frozenLayers.active());
+        return compacted;
+    }
+
+    private boolean change(long userId, long friendId, boolean add) {
+        EdgeLog log = this.log;
+        long[] ticket = new long[1];
+        Lock lock = freezeLock.readLock();
+        lock.lock();
+        try {
+            if (!apply(userId, friendId, add, log, ticket)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.awaitDurable(ticket[0]);
+        scheduleCompaction(1);
+        return true;
+    }
+
+    /**
+     * Меняет ребро под блокировками обеих вершин; вызывается под блокировкой заморозки на чтение.
+     *
+     * @param ticket сюда записывается номер записи журнала, если ребро изменилось
+     * @return изменилось ли ребро
+     */
+    private boolean apply(long userId, long friendId, boolean add, EdgeLog log, long[] ticket) {
+        int user = node(userId);
+        int friend = node(friendId);
+        Object first = stripe(Math.min(user, friend));
+        Object second = stripe(Math.max(user, friend));
+        synchronized (first) {
+            synchronized (second) {
+                Layers current = layers;
+                if (contains(current, user, friend) == add) {
+                    return false;
+                }
+                mark(current.active(), user, friend, add);
+                mark(current.active(), friend, user, add);
+                ticket[0] = add ? log.logAdd(userId, friendId) : log.logRemove(userId, friendId);
+                return true;
+            }
+        }
+    }
+
+    private void scheduleCompaction(int changes) {
+        int threshold = Math.max(MIN_COMPACTION_DELTA, layers.base().edges() / 8);
+        if (pendingChanges.addAndGet(changes) > threshold && compactionScheduled.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    compact(() -> {
+                    });
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private static boolean contains(Layers layers, int node, int target) {
+        NodeDelta active = layers.active().get(node);
+        if (active != null && active.knows(target)) {
+            return active.added.contains(target);
+        }
+        NodeDelta frozen = layers.frozen().get(node);
+        if (frozen != null && frozen.knows(target)) {
+            return frozen.added.contains(target);
+        }
+        return layers.base().contains(node, target);
+    }
+
+    private static void mark(ConcurrentMap<Integer, NodeDelta> delta, int node, int target, boolean add) {
+        NodeDelta nodeDelta = delta.computeIfAbsent(node, key -> new NodeDelta());
+        if (add) {
+            nodeDelta.removed.remove(target);
+            nodeDelta.added.add(target);
+        } else {
+            nodeDelta.added.remove(target);
+            nodeDelta.removed.add(target);
+        }
+    }
+
+    private static long[] baseNeighbors(Csr base, int node) {
+        if (node >= base.nodes()) {
+            return NONE;
+        }
+        int from = base.offsets()[node];
+        long[] neighbors = new long[base.offsets()[node + 1] - from];
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = base.targets()[from + i];
+        }
+        return neighbors;
+    }
+
+    /**
+     * Слияние отсортированных соседей из CSR с добавленными в дельтах; видимость каждого id решает
+     * самый верхний слой, который о нём знает.
+     *
+     * @param added   отсортированные добавления текущего слоя
+     * @param removed отсортированные удаления текущего слоя
+     */
+    private static long[] merge(Csr base, int node, NodeDelta frozen, long[] added, long[] removed) {
+        long[] candidates = added;
+        if (frozen != null && !frozen.added.isEmpty()) {
+            long[] frozenAdded = frozen.added.toLongArray();
+            candidates = Arrays.copyOf(added, added.length + frozenAdded.length);
+            System.arraycopy(frozenAdded, 0, candidates, added.length, frozenAdded.length);
+            Arrays.sort(candidates);
+        }
+        int from = node < base.nodes() ? base.offsets()[node] : 0;
+        int to = from + base.degree(node);
+        int[] targets = base.targets();
+        long[] neighbors = new long[to - from + candidates.length];
+        int size = 0;
+        int i = from;
+        int j = 0;
+        while (i < to || j < candidates.length) {
+            long next;
+            if (j == candidates.length || i < to && targets[i] < candidates[j]) {
+                next = targets[i++];
+            } else {
+                next = candidates[j++];
+                if (i < to && targets[i] == next) {
+                    i++;
+                }
+            }
+            if ((size == 0 || neighbors[size - 1] != next) && visible(next, frozen, added, removed)) {
+                neighbors[size++] = next;
+            }
+        }
+        return size == neighbors.length ? neighbors : Arrays.copyOf(neighbors, size);
+    }
+
+    private static boolean visible(long target, NodeDelta frozen, long[] added, long[] removed) {
+        if (Arrays.binarySearch(added, target) >= 0) {
+            return true;
+        }
+        if (Arrays.binarySearch(removed, target) >= 0) {
+            return false;
+        }
+        return frozen == null || !frozen.removed.contains(target) || frozen.added.contains(target);
+    }
+
+    private static Csr rebuild(Csr base, Map<Integer, NodeDelta> delta) {
+        int nodes = base.nodes();
+        for (int node : delta.keySet()) {
+            nodes = Math.max(nodes, node + 1);
+        }
+        int[] offsets = new int[nodes + 1];
+        int[] targets = new int[Math.max(16, base.edges())];
+        int size = 0;
+        for (int node = 0; node < nodes; node++) {
+            offsets[node] = size;
+            NodeDelta nodeDelta = delta.get(node);
+            int degree = base.degree(node);
+            if (nodeDelta == null) {
+                if (degree > 0) {
+                    targets = ensureCapacity(targets, size + degree);
+                    System.arraycopy(base.targets(), base.offsets()[node], targets, size, degree);
+                    size += degree;
+                }
+                continue;
+            }
+            long[] neighbors = merge(base, node, nodeDelta, NONE, NONE);
+            targets = ensureCapacity(targets, size + neighbors.length);
+            for (long neighbor : neighbors) {
+                targets[size++] = (int) neighbor;
+            }
+        }
+        offsets[nodes] = size;
+        return new Csr(offsets, Arrays.copyOf(targets, size));
+    }
+
+    private static int[] ensureCapacity(int[] array, int required) {
+        if (array.length >= required) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(required, array.length + (array.length >> 1)));
+    }
+
+    private static int node(long id) {
+        if (id < 0 || id >= Integer.MAX_VALUE) {
+            throw new NotFoundException("Пользователь с таким id не найден");
+        }
+        return (int) id;
+    }
+
+    private Object stripe(int node) {
+        return stripes[node & (STRIPES - 1)];
+    }
+
+    private record Layers(Csr base, Map<Integer, NodeDelta> frozen, ConcurrentMap<Integer, NodeDelta> active) {
+    }
+
+    private static final class NodeDelta {
+        private final LongHashSet added = new LongHashSet();
+        private final LongHashSet removed = new LongHashSet();
+
+        private boolean knows(long target) {
+            return added.contains(target) || removed.contains(target);
+        }
+    }
+}
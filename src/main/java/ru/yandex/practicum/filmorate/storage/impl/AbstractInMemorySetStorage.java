@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import ru.yandex.practicum.filmorate.model.AbstractModel;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * In-memory хранилище сущностей с множеством внутри (лайки фильма), элементы которого меняются на месте
+ * и журналируются по одному.
+ */
+public abstract class AbstractInMemorySetStorage<M extends AbstractModel> extends AbstractInMemoryStorage<M> {
+
+    /**
+     * @return изменилась ли сущность
+     * @throws NoSuchElementException если сущности нет
+     */
+    public boolean changeElement(long id, long element, boolean add) {
+        return changeElement(id, element, add, this::applyElement);
+    }
+
+    /**
+     * @return изменившиеся элементы по id сущности; сущностей, которых нет, в результате тоже нет
+     */
+    public Map<Long, long[]> changeElements(Map<Long, long[]> elements, boolean add) {
+        return changeElements(elements, add, this::applyElement);
+    }
+
+    protected abstract boolean applyElement(M model, long element, boolean add);
+}
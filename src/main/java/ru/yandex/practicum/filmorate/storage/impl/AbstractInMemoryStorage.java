@@ -1,37 +1,328 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
 import ru.yandex.practicum.filmorate.model.AbstractModel;
+import ru.yandex.practicum.filmorate.storage.persistence.MappedSnapshot;
+import ru.yandex.practicum.filmorate.storage.persistence.StorageJournal;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Хранилище поверх двух слоёв: неизменяемого снимка {@link MappedSnapshot}, записи которого декодируются
+ * при первом обращении, и карты с сущностями, прочитанными или изменёнными после старта.
+ * Удаление записи снимка запоминается в {@code deleted}; в {@code ids} лежат только id, которых нет в снимке.
+ */
 public abstract class AbstractInMemoryStorage<M extends AbstractModel> {
-    private final Map<Long, M> storage = new HashMap<>();
+    private final ConcurrentMap<Long, M> storage = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile MappedSnapshot<M> snapshot = MappedSnapshot.empty();
+    private volatile StorageJournal<M> journal = StorageJournal.none();
 
     public List<M> findAll() {
-        return storage.values().stream().toList();
+        return collect(Long.MIN_VALUE, Integer.MAX_VALUE);
     }
 
     public Optional<M> findById(Long id) {
-        return Optional.ofNullable(storage.get(id));
+        return Optional.ofNullable(load(id));
     }
 
-    public M save(M film) {
-        if (film.getId() == null) {
-            film.setId(generateNextId());
+    public List<M> findAllById(Collection<Long> ids) {
+        List<M> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            M model = load(id);
+            if (model != null) {
+                found.add(model);
+            }
         }
-        storage.put(film.getId(), film);
-        return storage.get(film.getId());
+        return found;
+    }
+
+    public List<M> findPage(long after, int limit) {
+        return collect(after, limit);
+    }
+
+    public M save(M model) {
+        StorageJournal<M> journal = this.journal;
+        journal.awaitDurable(apply(model, journal));
+        return model;
+    }
+
+    public List<M> saveAll(Collection<M> models) {
+        StorageJournal<M> journal = this.journal;
+        long ticket = 0;
+        for (M model : models) {
+            ticket = apply(model, journal);
+        }
+        journal.awaitDurable(ticket);
+        return List.copyOf(models);
+    }
+
+    /**
+     * Применяет запись журнала при восстановлении. Нечёткий снимок может уже содержать более позднее состояние,
+     * поэтому хранилища с проверками между сущностями пропускают их здесь.
+     */
+    public M restore(M model) {
+        return save(model);
     }
 
     public void delete(Long id) {
-        storage.remove(id);
+        StorageJournal<M> journal = this.journal;
+        long[] ticket = new long[1];
+        journal.mutate(() -> storage.compute(id, (key, current) -> {
+            M previous = current != null ? current : decode(key);
+            if (previous == null) {
+                return null;
+            }
+            ticket[0] = journal.logDelete(key);
+            if (!ids.remove(key)) {
+                deleted.add(key);
+            }
+            onDelete(previous);
+            return null;
+        }));
+        journal.awaitDurable(ticket[0]);
+    }
+
+    /**
+     * Добавляет или убирает один элемент множества внутри сущности (например, лайк фильма) под той же
+     * блокировкой, что и запись, не копируя сущность. В журнал попадает только сам элемент.
+     *
+     * @return изменилась ли сущность
+     * @throws NoSuchElementException если сущности нет
+     */
+    protected boolean changeElement(long id, long element, boolean add, ElementChange<M> change) {
+        StorageJournal<M> journal = this.journal;
+        long[] ticket = new long[1];
+        boolean[] found = new boolean[1];
+        boolean[] changed = new boolean[1];
+        journal.mutate(() -> storage.compute(id, (key, current) -> {
+            M model = current != null ? current : decode(key);
+            if (model == null) {
+                return null;
+            }
+            found[0] = true;
+            if (change.apply(model, element, add)) {
+                changed[0] = true;
+                ticket[0] = journal.logElement(key, element, add);
+                onSave(model);
+            }
+            return model;
+        }));
+        if (!found[0]) {
+            throw new NoSuchElementException("Нет сущности с id " + id);
+        }
+        journal.awaitDurable(ticket[0]);
+        return changed[0];
+    }
+
+    /**
+     * Пакетный вариант {@link #changeElement}: элементы каждой сущности меняются за один проход под её
+     * блокировкой, подтверждение журнала ждётся один раз на всю пачку. Сущности, которых нет, пропускаются.
+     *
+     * @param elements элементы по id сущности
+     * @return изменившиеся элементы по id сущности; сущности без изменений в результат не попадают
+     */
+    protected Map<Long, long[]> changeElements(Map<Long, long[]> elements, boolean add, ElementChange<M> change) {
+        StorageJournal<M> journal = this.journal;
+        Map<Long, long[]> changed = new HashMap<>();
+        long[] ticket = new long[1];
+        elements.forEach((id, values) -> journal.mutate(() -> storage.compute(id, (key, current) -> {
+            M model = current != null ? current : decode(key);
+            if (model == null) {
+                return null;
+            }
+            long[] applied = new long[values.length];
+            int size = 0;
+            for (long element : values) {
+                if (change.apply(model, element, add)) {
+                    applied[size++] = element;
+                    ticket[0] = journal.logElement(key, element, add);
+                }
+            }
+            if (size > 0) {
+                changed.put(key, Arrays.copyOf(applied, size));
+                onSave(model);
+            }
+            return model;
+        })));
+        journal.awaitDurable(ticket[0]);
+        return changed;
+    }
+
+    public void attachJournal(StorageJournal<M> journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Подключает снимок как нижний слой пустого хранилища. Для каждой записи вызывается {@link #onRestore},
+     * сами записи не декодируются.
+     */
+    public void attachSnapshot(MappedSnapshot<M> snapshot) {
+        if (!storage.isEmpty() || !ids.isEmpty() || !deleted.isEmpty()) {
+            throw new IllegalStateException("Снимок можно подключить только к пустому хранилищу");
+        }
+        this.snapshot = snapshot;
+        advanceSequence(snapshot.header().sequence());
+        for (int position = 0; position < snapshot.size(); position++) {
+            onRestore(snapshot.idAt(position), snapshot.scoreAt(position));
+        }
+    }
+
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    public void advanceSequence(long value) {
+        sequence.accumulateAndGet(value, Math::max);
+    }
+
+    public int size() {
+        return snapshot.size() - deleted.size() + ids.size();
+    }
+
+    /**
+     * Сущности по возрастанию id. Записи снимка, к которым ещё не обращались, декодируются без кеширования.
+     */
+    public Iterable<M> values() {
+        return () -> new Iterator<>() {
+            private final Iterator<Long> orderedIds = orderedIds(Long.MIN_VALUE);
+            private M next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public M next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                M current = next;
+                next = advance();
+                return current;
+            }
+
+            private M advance() {
+                while (orderedIds.hasNext()) {
+                    Long id = orderedIds.next();
+                    M model = storage.get(id);
+                    if (model == null) {
+                        model = decode(id);
+                    }
+                    if (model != null) {
+                        return model;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private long apply(M model, StorageJournal<M> journal) {
+        if (model.getId() == null) {
+            model.setId(sequence.incrementAndGet());
+        } else {
+            sequence.accumulateAndGet(model.getId(), Math::max);
+        }
+        long[] ticket = new long[1];
+        journal.mutate(() -> storage.compute(model.getId(), (id, previous) -> {
+            ticket[0] = journal.logSave(model);
+            if (!deleted.remove(id) && !snapshot.contains(id)) {
+                ids.add(id);
+            }
+            onSave(model);
+            return model;
+        }));
+        return ticket[0];
+    }
+
+    private M load(Long id) {
+        M model = storage.get(id);
+        if (model != null || snapshot.size() == 0) {
+            return model;
+        }
+        return storage.computeIfAbsent(id, this::decode);
+    }
+
+    private M decode(Long id) {
+        return deleted.contains(id) ? null : snapshot.decode(id);
+    }
+
+    private List<M> collect(long after, int limit) {
+        List<M> found = new ArrayList<>(Math.min(limit, size()));
+        Iterator<Long> iterator = orderedIds(after);
+        while (found.size() < limit && iterator.hasNext()) {
+            M model = load(iterator.next());
+            if (model != null) {
+                found.add(model);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Слияние отсортированных id снимка и id, появившихся после старта.
+     */
+    private Iterator<Long> orderedIds(long after) {
+        MappedSnapshot<M> snapshot = this.snapshot;
+        Iterator<Long> added = ids.tailSet(after, false).iterator();
+        if (snapshot.size() == 0) {
+            return added;
+        }
+        return new Iterator<>() {
+            private int position = snapshot.positionAfter(after);
+            private Long pending = added.hasNext() ? added.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return position < snapshot.size() || pending != null;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (pending == null || position < snapshot.size() && snapshot.idAt(position) < pending) {
+                    return snapshot.idAt(position++);
+                }
+                Long next = pending;
+                pending = added.hasNext() ? added.next() : null;
+                return next;
+            }
+        };
+    }
+
+    protected void onSave(M model) {
+    }
+
+    protected void onDelete(M model) {
+    }
+
+    protected void onRestore(long id, long score) {
     }
 
-    private Long generateNextId() {
-        Optional<Long> maxId = storage.keySet().stream().max(Long::compareTo);
-        return maxId.map(max -> max + 1).orElse(1L);
+    @FunctionalInterface
+    protected interface ElementChange<M> {
+        /**
+         * @return изменилась ли сущность
+         */
+        boolean apply(M model, long element, boolean add);
     }
-}
\ No newline at end of file
+}
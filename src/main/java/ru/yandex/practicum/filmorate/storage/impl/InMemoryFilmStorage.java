@@ -1,9 +1,81 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.persistence.FilmCodec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 @Component
-public class InMemoryFilmStorage extends AbstractInMemoryStorage<Film> implements FilmStorage {
+@Profile("!db & !offheap")
+public class InMemoryFilmStorage extends AbstractInMemorySetStorage<Film> implements FilmStorage {
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+
+    @Override
+    public List<Film> findMostPopular(int count) {
+        return findAllById(popularityIndex.top(count));
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count, int releaseYear) {
+        return findAllById(popularityIndex.topIn(releaseYear, count));
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        return changeLike(filmId, userId, true);
+    }
+
+    @Override
+    public Map<Long, long[]> addLikes(Map<Long, long[]> likes) {
+        return changeElements(likes, true);
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        return changeLike(filmId, userId, false);
+    }
+
+    @Override
+    public Map<Long, long[]> removeLikes(Map<Long, long[]> likes) {
+        return changeElements(likes, false);
+    }
+
+    @Override
+    protected boolean applyElement(Film film, long userId, boolean add) {
+        return add ? film.addLike(userId) : film.removeLike(userId);
+    }
+
+    @Override
+    protected void onSave(Film film) {
+        popularityIndex.put(film.getId(), film.getLikeCount(), releaseYear(film));
+    }
+
+    @Override
+    protected void onDelete(Film film) {
+        popularityIndex.remove(film.getId());
+    }
+
+    @Override
+    protected void onRestore(long id, long score) {
+        popularityIndex.put(id, FilmCodec.likes(score), FilmCodec.releaseYear(score));
+    }
+
+    private boolean changeLike(long filmId, long userId, boolean add) {
+        try {
+            return changeElement(filmId, userId, add);
+        } catch (NoSuchElementException e) {
+            throw new NotFoundException("Фильма с таким id не найдено");
+        }
+    }
+
+    private static int releaseYear(Film film) {
+        return film.getReleaseDate() == null ? PopularityIndex.NO_PARTITION : film.getReleaseDate().getYear();
+    }
 }
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.graph.FriendshipGraph;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@Profile("!db")
+public class InMemoryFriendshipStorage extends FriendshipGraph implements FriendshipStorage {
+
+    @Override
+    public Map<Long, long[]> findFriendIds(Collection<Long> userIds) {
+        Map<Long, long[]> friends = new HashMap<>();
+        for (Long userId : userIds) {
+            friends.put(userId, super.findFriendIds(userId));
+        }
+        return friends;
+    }
+}
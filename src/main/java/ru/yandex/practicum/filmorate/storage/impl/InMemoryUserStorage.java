@@ -1,9 +1,159 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.HashKeyIndex;
+import ru.yandex.practicum.filmorate.storage.persistence.UserCodec;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Логин и email уникальны, сравнение с учётом регистра, как в БД. По ним ведутся хеш-индексы, а проверка
+ * уникальности, запись и удаление идут под одной блокировкой, поэтому два пользователя не могут занять
+ * один ключ.
+ */
 @Component
+@Profile("!db")
 public class InMemoryUserStorage extends AbstractInMemoryStorage<User> implements UserStorage {
+    private final HashKeyIndex logins = new HashKeyIndex();
+    private final HashKeyIndex emails = new HashKeyIndex();
+    private final Object writeLock = new Object();
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return find(logins, User::getLogin, login);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return find(emails, User::getEmail, email);
+    }
+
+    @Override
+    public User save(User user) {
+        saveAll(List.of(user));
+        return user;
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        synchronized (writeLock) {
+            checkUnique(users);
+            return write(users);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        synchronized (writeLock) {
+            super.delete(id);
+        }
+    }
+
+    @Override
+    public User restore(User user) {
+        synchronized (writeLock) {
+            write(List.of(user));
+            return user;
+        }
+    }
+
+    @Override
+    protected void onSave(User user) {
+        if (user.getLogin() != null) {
+            logins.add(HashKeyIndex.hash(user.getLogin()), user.getId());
+        }
+        if (user.getEmail() != null) {
+            emails.add(HashKeyIndex.hash(user.getEmail()), user.getId());
+        }
+    }
+
+    @Override
+    protected void onDelete(User user) {
+        logins.remove(HashKeyIndex.hash(user.getLogin()), user.getId());
+        emails.remove(HashKeyIndex.hash(user.getEmail()), user.getId());
+    }
+
+    @Override
+    protected void onRestore(long id, long score) {
+        if (score != 0) {
+            logins.add(UserCodec.loginHash(score), id);
+            emails.add(UserCodec.emailHash(score), id);
+        } else {
+            findById(id).ifPresent(this::onSave);
+        }
+    }
+
+    private List<User> write(Collection<User> users) {
+        List<User> previous = new ArrayList<>(users.size());
+        for (User user : users) {
+            previous.add(user.getId() == null ? null : findById(user.getId()).orElse(null));
+        }
+        List<User> saved = super.saveAll(users);
+        int position = 0;
+        for (User user : users) {
+            unindexChanged(previous.get(position++), user);
+        }
+        return saved;
+    }
+
+    private void unindexChanged(User previous, User user) {
+        if (previous == null || previous == user) {
+            return;
+        }
+        if (HashKeyIndex.hash(previous.getLogin()) != HashKeyIndex.hash(user.getLogin())) {
+            logins.remove(HashKeyIndex.hash(previous.getLogin()), previous.getId());
+        }
+        if (HashKeyIndex.hash(previous.getEmail()) != HashKeyIndex.hash(user.getEmail())) {
+            emails.remove(HashKeyIndex.hash(previous.getEmail()), previous.getId());
+        }
+    }
+
+    private void checkUnique(Collection<User> users) {
+        Map<String, User> batchLogins = new HashMap<>();
+        Map<String, User> batchEmails = new HashMap<>();
+        for (User user : users) {
+            checkUnique(logins, User::getLogin, user, batchLogins, "Пользователь с таким login уже существует");
+            checkUnique(emails, User::getEmail, user, batchEmails, "Пользователь с таким email уже существует");
+        }
+    }
+
+    private void checkUnique(HashKeyIndex index, Function<User, String> key, User user, Map<String, User> batch,
+                             String message) {
+        String value = key.apply(user);
+        if (value == null) {
+            return;
+        }
+        User other = batch.putIfAbsent(value, user);
+        if (other != null && !sameUser(other, user)
+                || find(index, key, value).filter(found -> !sameUser(found, user)).isPresent()) {
+            throw new ConflictException(message);
+        }
+    }
+
+    private Optional<User> find(HashKeyIndex index, Function<User, String> key, String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        for (long id : index.candidates(HashKeyIndex.hash(value))) {
+            Optional<User> user = findById(id).filter(candidate -> value.equals(key.apply(candidate)));
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean sameUser(User first, User second) {
+        return first == second || first.getId() != null && first.getId().equals(second.getId());
+    }
 }
@@ -0,0 +1,303 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.sql.BatchUpdateException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@Profile("db")
+@RequiredArgsConstructor
+public class JdbcFilmStorage implements FilmStorage {
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) "
+            + "SELECT id, :userId FROM films WHERE id = :filmId "
+            + "AND NOT EXISTS (SELECT 1 FROM likes WHERE film_id = :filmId AND user_id = :userId)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public List<Film> findAll() {
+        List<Film> films = jdbc.query("SELECT * FROM films ORDER BY id", this::mapFilm);
+        attachLikes(films, "SELECT film_id, user_id FROM likes", new MapSqlParameterSource());
+        return films;
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        List<Film> films = jdbc.query("SELECT * FROM films WHERE id = :id", Map.of("id", id), this::mapFilm);
+        attachLikes(films, "SELECT film_id, user_id FROM likes WHERE film_id = :id",
+                new MapSqlParameterSource("id", id));
+        return films.stream().findFirst();
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        List<Film> films = jdbc.query("SELECT * FROM films WHERE id IN (:ids)", params, this::mapFilm);
+        attachLikes(films, "SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)", params);
+        Map<Long, Film> byId = new HashMap<>();
+        films.forEach(film -> byId.put(film.getId(), film));
+        List<Film> found = new ArrayList<>(films.size());
+        for (Long id : ids) {
+            Film film = byId.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count) {
+        MapSqlParameterSource params = new MapSqlParameterSource("count", Math.max(0, count));
+        return findMostPopular("", params);
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count, int releaseYear) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("count", Math.max(0, count))
+                .addValue("from", LocalDate.ofYearDay(releaseYear, 1))
+                .addValue("to", LocalDate.ofYearDay(releaseYear + 1, 1));
+        return findMostPopular("WHERE f.release_date >= :from AND f.release_date < :to ", params);
+    }
+
+    @Override
+    public List<Film> findPage(long after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", Math.max(0, limit));
+        List<Film> films = jdbc.query("SELECT * FROM films WHERE id > :after ORDER BY id LIMIT :limit", params,
+                this::mapFilm);
+        attachLikes(films, "SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", films.stream().map(Film::getId).toList()));
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public Film save(Film film) {
+        return saveAll(List.of(film)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<Film> saveAll(Collection<Film> films) {
+        List<Film> created = films.stream().filter(film -> film.getId() == null).toList();
+        List<Film> existing = films.stream().filter(film -> film.getId() != null).toList();
+        if (!created.isEmpty()) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbc.batchUpdate("INSERT INTO films (name, description, release_date, duration, like_count) "
+                            + "VALUES (:name, :description, :releaseDate, :duration, :likeCount)",
+                    created.stream().map(this::toParams).toArray(SqlParameterSource[]::new), keyHolder,
+                    new String[]{"id"});
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+        }
+        if (!existing.isEmpty()) {
+            jdbc.batchUpdate("MERGE INTO films (id, name, description, release_date, duration, like_count) KEY (id) "
+                            + "VALUES (:id, :name, :description, :releaseDate, :duration, :likeCount)",
+                    existing.stream().map(this::toParams).toArray(SqlParameterSource[]::new));
+            jdbc.batchUpdate("DELETE FROM likes WHERE film_id = :id",
+                    existing.stream().map(film -> new MapSqlParameterSource("id", film.getId()))
+                            .toArray(SqlParameterSource[]::new));
+        }
+        SqlParameterSource[] relations = films.stream()
+                .flatMap(film -> film.getLikes().stream()
+                        .map(otherId -> new MapSqlParameterSource()
+                                .addValue("filmId", film.getId())
+                                .addValue("userId", otherId)))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (:filmId, :userId)", relations);
+        return List.copyOf(films);
+    }
+
+    @Override
+    public void delete(Long id) {
+        jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", id));
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(long filmId, long userId) {
+        MapSqlParameterSource params = likeParams(filmId, userId);
+        int inserted = updateIgnoringDuplicate(INSERT_LIKE, params);
+        if (inserted == 0) {
+            requireFilm(filmId);
+            return false;
+        }
+        jdbc.update("UPDATE films SET like_count = like_count + 1 WHERE id = :filmId", params);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, long[]> addLikes(Map<Long, long[]> likes) {
+        return changeLikes(likes, INSERT_LIKE, 1);
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(long filmId, long userId) {
+        MapSqlParameterSource params = likeParams(filmId, userId);
+        int deleted = jdbc.update("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId", params);
+        if (deleted == 0) {
+            requireFilm(filmId);
+            return false;
+        }
+        jdbc.update("UPDATE films SET like_count = like_count - 1 WHERE id = :filmId", params);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, long[]> removeLikes(Map<Long, long[]> likes) {
+        return changeLikes(likes, "DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId", -1);
+    }
+
+    /**
+     * Лайки меняются одним пакетом, счётчики — одним пакетом обновлений, по строке на фильм.
+     *
+     * @param sign +1 для добавления лайков, -1 для снятия
+     */
+    private Map<Long, long[]> changeLikes(Map<Long, long[]> likes, String sql, int sign) {
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        likes.forEach((filmId, userIds) -> Arrays.stream(userIds).distinct()
+                .forEach(userId -> rows.add(likeParams(filmId, userId))));
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        int[] updated;
+        try {
+            updated = jdbc.batchUpdate(sql, rows.toArray(SqlParameterSource[]::new));
+        } catch (DuplicateKeyException e) {
+            updated = retryFailedRows(sql, rows, e);
+        }
+        Map<Long, List<Long>> changed = new HashMap<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) {
+                changed.computeIfAbsent((Long) rows.get(i).getValue("filmId"), id -> new ArrayList<>())
+                        .add((Long) rows.get(i).getValue("userId"));
+            }
+        }
+        jdbc.batchUpdate("UPDATE films SET like_count = like_count + :delta WHERE id = :filmId",
+                changed.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("filmId", entry.getKey())
+                                .addValue("delta", sign * entry.getValue().size()))
+                        .toArray(SqlParameterSource[]::new));
+        Map<Long, long[]> result = new HashMap<>();
+        changed.forEach((filmId, userIds) -> result.put(filmId, userIds.stream().mapToLong(Long::longValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Параллельный писатель может вставить ту же пару после проверки NOT EXISTS, и тогда пакет падает на
+     * уникальном ключе. Строки, выполненные до ошибки, берутся из счётчиков пакета, остальные повторяются
+     * по одной: конфликтная строка, как и в {@link #addLike}, просто не считается изменённой.
+     */
+    private int[] retryFailedRows(String sql, List<MapSqlParameterSource> rows, DuplicateKeyException e) {
+        int[] executed = e.getCause() instanceof BatchUpdateException batch ? batch.getUpdateCounts() : new int[0];
+        int[] updated = Arrays.copyOf(executed, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (i >= executed.length || executed[i] == Statement.EXECUTE_FAILED) {
+                updated[i] = updateIgnoringDuplicate(sql, rows.get(i));
+            }
+        }
+        return updated;
+    }
+
+    private int updateIgnoringDuplicate(String sql, MapSqlParameterSource params) {
+        try {
+            return jdbc.update(sql, params);
+        } catch (DuplicateKeyException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Вызывается, только когда лайк не изменился: отличает повтор от отсутствующего фильма.
+     */
+    private void requireFilm(long filmId) {
+        Integer films = jdbc.queryForObject("SELECT COUNT(*) FROM films WHERE id = :id", Map.of("id", filmId),
+                Integer.class);
+        if (films == null || films == 0) {
+            throw new NotFoundException("Фильма с таким id не найдено");
+        }
+    }
+
+    private static MapSqlParameterSource likeParams(long filmId, long userId) {
+        return new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId);
+    }
+
+    private MapSqlParameterSource toParams(Film film) {
+        return new MapSqlParameterSource()
+                .addValue("id", film.getId())
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("duration", film.getDuration())
+                .addValue("likeCount", film.getLikeCount());
+    }
+
+    private List<Film> findMostPopular(String filter, MapSqlParameterSource params) {
+        List<Film> films = jdbc.query("SELECT * FROM films f " + filter
+                + "ORDER BY f.like_count DESC, f.id LIMIT :count", params, this::mapFilm);
+        attachLikes(films, "SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", films.stream().map(Film::getId).toList()));
+        return films;
+    }
+
+    private void attachLikes(List<Film> films, String sql, SqlParameterSource params) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Long, Film> byId = new HashMap<>();
+        films.forEach(film -> byId.put(film.getId(), film));
+        jdbc.query(sql, params, rs -> {
+            Film film = byId.get(rs.getLong("film_id"));
+            if (film != null) {
+                film.addLike(rs.getLong("user_id"));
+            }
+        });
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        film.setReleaseDate(rs.getObject("release_date", LocalDate.class));
+        film.setDuration(rs.getObject("duration", Integer.class));
+        return film;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@Profile("db")
+@RequiredArgsConstructor
+public class JdbcFriendshipStorage implements FriendshipStorage {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    @Transactional
+    public boolean addFriend(long userId, long friendId) {
+        MapSqlParameterSource params = params(userId, friendId);
+        try {
+            int inserted = jdbc.update("INSERT INTO friendship (user_id, friend_id) SELECT :userId, :friendId "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = :userId AND friend_id = :friendId)",
+                    params);
+            jdbc.update("INSERT INTO friendship (user_id, friend_id) SELECT :friendId, :userId "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = :friendId AND friend_id = :userId)",
+                    params);
+            return inserted > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Обе стороны дружбы вставляются двумя пакетами; пара, повторённая в пачке в любом порядке, пишется один раз.
+     */
+    @Override
+    @Transactional
+    public Map<Long, long[]> addFriends(Map<Long, long[]> friendships) {
+        Set<List<Long>> seen = new HashSet<>();
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        friendships.forEach((userId, friendIds) -> {
+            for (long friendId : friendIds) {
+                if (seen.add(List.of(Math.min(userId, friendId), Math.max(userId, friendId)))) {
+                    rows.add(params(userId, friendId));
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        SqlParameterSource[] batch = rows.toArray(SqlParameterSource[]::new);
+        int[] inserted = jdbc.batchUpdate("INSERT INTO friendship (user_id, friend_id) SELECT :userId, :friendId "
+                + "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = :userId AND friend_id = :friendId)",
+                batch);
+        jdbc.batchUpdate("INSERT INTO friendship (user_id, friend_id) SELECT :friendId, :userId "
+                + "WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = :friendId AND friend_id = :userId)",
+                batch);
+        Map<Long, List<Long>> added = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                added.computeIfAbsent((Long) rows.get(i).getValue("userId"), id -> new ArrayList<>())
+                        .add((Long) rows.get(i).getValue("friendId"));
+            }
+        }
+        Map<Long, long[]> result = new HashMap<>();
+        added.forEach((userId, friendIds) ->
+                result.put(userId, friendIds.stream().mapToLong(Long::longValue).toArray()));
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeFriend(long userId, long friendId) {
+        return jdbc.update("DELETE FROM friendship WHERE (user_id = :userId AND friend_id = :friendId) "
+                + "OR (user_id = :friendId AND friend_id = :userId)", params(userId, friendId)) > 0;
+    }
+
+    @Override
+    public long[] findFriendIds(long userId) {
+        return jdbc.queryForList("SELECT friend_id FROM friendship WHERE user_id = :userId ORDER BY friend_id",
+                        new MapSqlParameterSource("userId", userId), Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @Override
+    public Map<Long, long[]> findFriendIds(Collection<Long> userIds) {
+        Map<Long, List<Long>> found = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            jdbc.query("SELECT user_id, friend_id FROM friendship WHERE user_id IN (:ids) ORDER BY user_id, friend_id",
+                    new MapSqlParameterSource("ids", userIds), rs -> {
+                        found.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>())
+                                .add(rs.getLong("friend_id"));
+                    });
+        }
+        Map<Long, long[]> friends = new HashMap<>();
+        for (Long userId : userIds) {
+            friends.put(userId, found.getOrDefault(userId, List.of()).stream().mapToLong(Long::longValue).toArray());
+        }
+        return friends;
+    }
+
+    private static MapSqlParameterSource params(long userId, long friendId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("friendId", friendId);
+    }
+}
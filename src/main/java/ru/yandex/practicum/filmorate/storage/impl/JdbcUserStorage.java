@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@Profile("db")
+@RequiredArgsConstructor
+public class JdbcUserStorage implements UserStorage {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public List<User> findAll() {
+        return jdbc.query("SELECT * FROM users ORDER BY id", this::mapUser);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return jdbc.query("SELECT * FROM users WHERE id = :id", Map.of("id", id), this::mapUser).stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        List<User> users = jdbc.query("SELECT * FROM users WHERE id IN (:ids)", params, this::mapUser);
+        Map<Long, User> byId = new HashMap<>();
+        users.forEach(user -> byId.put(user.getId(), user));
+        List<User> found = new ArrayList<>(users.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", Math.max(0, limit));
+        return jdbc.query("SELECT * FROM users WHERE id > :after ORDER BY id LIMIT :limit", params, this::mapUser);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return jdbc.query("SELECT * FROM users WHERE login = :login", Map.of("login", login), this::mapUser).stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return jdbc.query("SELECT * FROM users WHERE email = :email", Map.of("email", email), this::mapUser).stream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional
+    public User save(User user) {
+        return saveAll(List.of(user)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<User> saveAll(Collection<User> users) {
+        try {
+            return write(users);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException(conflictMessage(e));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        Map<String, Long> params = Map.of("id", id);
+        jdbc.update("UPDATE films SET like_count = like_count - 1 "
+                + "WHERE id IN (SELECT film_id FROM likes WHERE user_id = :id)", params);
+        jdbc.update("DELETE FROM users WHERE id = :id", params);
+    }
+
+    private List<User> write(Collection<User> users) {
+        List<User> created = users.stream().filter(user -> user.getId() == null).toList();
+        List<User> existing = users.stream().filter(user -> user.getId() != null).toList();
+        if (!created.isEmpty()) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbc.batchUpdate("INSERT INTO users (email, login, name, birthday) "
+                            + "VALUES (:email, :login, :name, :birthday)",
+                    created.stream().map(this::toParams).toArray(SqlParameterSource[]::new), keyHolder,
+                    new String[]{"id"});
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+        }
+        if (!existing.isEmpty()) {
+            jdbc.batchUpdate("MERGE INTO users (id, email, login, name, birthday) KEY (id) "
+                            + "VALUES (:id, :email, :login, :name, :birthday)",
+                    existing.stream().map(this::toParams).toArray(SqlParameterSource[]::new));
+        }
+        return List.copyOf(users);
+    }
+
+    private static String conflictMessage(DuplicateKeyException e) {
+        String message = String.valueOf(e.getMessage()).toLowerCase(Locale.ROOT);
+        if (message.contains("users_login_uq")) {
+            return "Пользователь с таким login уже существует";
+        }
+        if (message.contains("users_email_uq")) {
+            return "Пользователь с таким email уже существует";
+        }
+        return "Пользователь с таким login или email уже существует";
+    }
+
+    private MapSqlParameterSource toParams(User user) {
+        return new MapSqlParameterSource()
+                .addValue("id", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        user.setBirthday(rs.getObject("birthday", LocalDate.class));
+        return user;
+    }
+}
@@ -0,0 +1,312 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.offheap.StringDictionary;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Каталог фильмов в колонках вне кучи. Строка фильма с id = N лежит в позиции N блоков фиксированной ширины:
+ * ссылки на название и описание в {@link StringDictionary}, дата выпуска в днях эпохи, длительность и флаги.
+ * На куче остаются только множества лайков понравившихся фильмов и рейтинг, а {@link Film}
+ * собирается заново при каждом чтении. Чтение и запись одной строки сериализуются через полосы блокировок.
+ * Строка фильма владеет ссылками на свои строки в словаре: при перезаписи и удалении старые ссылки отпускаются,
+ * поэтому строки читаются из словаря под той же блокировкой.
+ */
+@Component
+@Profile("offheap & !db")
+public class OffHeapFilmStorage implements FilmStorage {
+    private static final int ROWS_PER_CHUNK = 1 << 14;
+    private static final int ROW_SIZE = 32;
+    private static final int NAME = 0;
+    private static final int DESCRIPTION = 8;
+    private static final int RELEASE_DATE = 16;
+    private static final int DURATION = 24;
+    private static final int FLAGS = 28;
+    private static final int PRESENT = 1;
+    private static final int HAS_DURATION = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int STRIPES = 64;
+
+    private final StringDictionary strings = new StringDictionary();
+    private final ConcurrentMap<Long, LongHashSet> likes = new ConcurrentHashMap<>();
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object[] stripes = new Object[STRIPES];
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    public OffHeapFilmStorage() {
+        Arrays.setAll(stripes, i -> new Object());
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return findPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return Optional.ofNullable(id == null ? null : read(id));
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        List<Film> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = read(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Film> findPage(long after, int limit) {
+        long last = sequence.get();
+        List<Film> found = new ArrayList<>((int) Math.min(limit, Math.max(0, last - after)));
+        for (long id = Math.max(after, 0) + 1; id <= last && found.size() < limit; id++) {
+            Film film = read(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count) {
+        return findAllById(popularityIndex.top(count));
+    }
+
+    @Override
+    public List<Film> findMostPopular(int count, int releaseYear) {
+        return findAllById(popularityIndex.topIn(releaseYear, count));
+    }
+
+    @Override
+    public Film save(Film film) {
+        if (film.getId() == null) {
+            film.setId(sequence.incrementAndGet());
+        } else if (film.getId() <= 0) {
+            throw new IllegalArgumentException("id фильма должен быть положительным: " + film.getId());
+        } else {
+            sequence.accumulateAndGet(film.getId(), Math::max);
+        }
+        long id = film.getId();
+        ByteBuffer chunk = chunk(id);
+        int row = row(id);
+        long name = strings.intern(film.getName());
+        long description = strings.intern(film.getDescription());
+        LongHashSet filmLikes = new LongHashSet(film.getLikes());
+        synchronized (stripe(id)) {
+            strings.release(chunk.getLong(row + NAME));
+            strings.release(chunk.getLong(row + DESCRIPTION));
+            chunk.putLong(row + NAME, name);
+            chunk.putLong(row + DESCRIPTION, description);
+            chunk.putLong(row + RELEASE_DATE, film.getReleaseDate() == null ? NO_DATE
+                    : film.getReleaseDate().toEpochDay());
+            chunk.putInt(row + DURATION, film.getDuration() == null ? 0 : film.getDuration());
+            chunk.putInt(row + FLAGS, film.getDuration() == null ? PRESENT : PRESENT | HAS_DURATION);
+            if (filmLikes.isEmpty()) {
+                likes.remove(id);
+            } else {
+                likes.put(id, filmLikes);
+            }
+            popularityIndex.put(id, filmLikes.size(), film.getReleaseDate() == null ? PopularityIndex.NO_PARTITION
+                    : film.getReleaseDate().getYear());
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> saveAll(Collection<Film> films) {
+        return films.stream().map(this::save).toList();
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id == null || id <= 0 || id > sequence.get()) {
+            return;
+        }
+        ByteBuffer chunk = chunk(id);
+        int row = row(id);
+        synchronized (stripe(id)) {
+            if ((chunk.getInt(row + FLAGS) & PRESENT) != 0) {
+                chunk.putInt(row + FLAGS, 0);
+                strings.release(chunk.getLong(row + NAME));
+                strings.release(chunk.getLong(row + DESCRIPTION));
+                chunk.putLong(row + NAME, StringDictionary.NULL);
+                chunk.putLong(row + DESCRIPTION, StringDictionary.NULL);
+                likes.remove(id);
+                popularityIndex.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        return changeLike(filmId, userId, true);
+    }
+
+    @Override
+    public Map<Long, long[]> addLikes(Map<Long, long[]> likes) {
+        return changeLikes(likes, true);
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        return changeLike(filmId, userId, false);
+    }
+
+    @Override
+    public Map<Long, long[]> removeLikes(Map<Long, long[]> likes) {
+        return changeLikes(likes, false);
+    }
+
+    public long offHeapBytes() {
+        return (long) chunks.length * ROWS_PER_CHUNK * ROW_SIZE + strings.offHeapBytes();
+    }
+
+    private boolean changeLike(long id, long userId, boolean add) {
+        long[] changed = changeLikes(id, new long[]{userId}, add);
+        if (changed == null) {
+            throw new NotFoundException("Фильма с таким id не найдено");
+        }
+        return changed.length > 0;
+    }
+
+    private Map<Long, long[]> changeLikes(Map<Long, long[]> likes, boolean add) {
+        Map<Long, long[]> changed = new HashMap<>();
+        likes.forEach((filmId, userIds) -> {
+            long[] filmChanged = changeLikes(filmId, userIds, add);
+            if (filmChanged != null && filmChanged.length > 0) {
+                changed.put(filmId, filmChanged);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Меняет лайки фильма за один захват его полосы и пересчитывает рейтинг один раз.
+     *
+     * @return изменившиеся лайки или null, если фильма нет
+     */
+    private long[] changeLikes(long id, long[] userIds, boolean add) {
+        ByteBuffer chunk = id <= 0 || id > sequence.get() ? null : chunk(id);
+        int row = row(id);
+        synchronized (stripe(id)) {
+            if (chunk == null || (chunk.getInt(row + FLAGS) & PRESENT) == 0) {
+                return null;
+            }
+            LongHashSet filmLikes = add ? likes.computeIfAbsent(id, key -> new LongHashSet()) : likes.get(id);
+            if (filmLikes == null) {
+                return new long[0];
+            }
+            long[] changed = new long[userIds.length];
+            int size = 0;
+            for (long userId : userIds) {
+                if (add ? filmLikes.add(userId) : filmLikes.remove(userId)) {
+                    changed[size++] = userId;
+                }
+            }
+            if (filmLikes.isEmpty()) {
+                likes.remove(id);
+            }
+            if (size > 0) {
+                long releaseDate = chunk.getLong(row + RELEASE_DATE);
+                popularityIndex.put(id, filmLikes.size(), releaseDate == NO_DATE ? PopularityIndex.NO_PARTITION
+                        : LocalDate.ofEpochDay(releaseDate).getYear());
+            }
+            return Arrays.copyOf(changed, size);
+        }
+    }
+
+    private Film read(long id) {
+        if (id <= 0 || id > sequence.get()) {
+            return null;
+        }
+        ByteBuffer[] current = chunks;
+        int index = (int) (id / ROWS_PER_CHUNK);
+        if (index >= current.length) {
+            return null;
+        }
+        ByteBuffer chunk = current[index];
+        int row = row(id);
+        String name;
+        String description;
+        long releaseDate;
+        int duration;
+        int flags;
+        LongHashSet filmLikes;
+        synchronized (stripe(id)) {
+            flags = chunk.getInt(row + FLAGS);
+            if ((flags & PRESENT) == 0) {
+                return null;
+            }
+            name = strings.get(chunk.getLong(row + NAME));
+            description = strings.get(chunk.getLong(row + DESCRIPTION));
+            releaseDate = chunk.getLong(row + RELEASE_DATE);
+            duration = chunk.getInt(row + DURATION);
+            filmLikes = likes.get(id);
+            if (filmLikes != null) {
+                filmLikes = new LongHashSet(filmLikes);
+            }
+        }
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(releaseDate == NO_DATE ? null : LocalDate.ofEpochDay(releaseDate));
+        film.setDuration((flags & HAS_DURATION) != 0 ? duration : null);
+        if (filmLikes != null) {
+            film.setLikes(filmLikes);
+        }
+        return film;
+    }
+
+    private ByteBuffer chunk(long id) {
+        int index = (int) (id / ROWS_PER_CHUNK);
+        ByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) {
+                ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = ByteBuffer.allocateDirect(ROWS_PER_CHUNK * ROW_SIZE);
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    private static int row(long id) {
+        return (int) (id % ROWS_PER_CHUNK) * ROW_SIZE;
+    }
+
+    private Object stripe(long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Вторичный индекс строкового ключа: 32-битный хеш ключа → id сущностей. Сами строки не хранятся,
+ * поэтому найденных кандидатов нужно сверять с сущностью — разные ключи с одним хешем редки, но возможны.
+ * Чтение без блокировок: список id по хешу заменяется целиком.
+ */
+public class HashKeyIndex {
+    private static final long[] NONE = new long[0];
+
+    private final ConcurrentMap<Integer, long[]> ids = new ConcurrentHashMap<>();
+
+    public static int hash(String key) {
+        return key == null ? 0 : key.hashCode();
+    }
+
+    public void add(int hash, long id) {
+        ids.compute(hash, (key, current) -> {
+            if (current == null) {
+                return new long[]{id};
+            }
+            if (indexOf(current, id) >= 0) {
+                return current;
+            }
+            long[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = id;
+            return grown;
+        });
+    }
+
+    public void remove(int hash, long id) {
+        ids.computeIfPresent(hash, (key, current) -> {
+            int index = indexOf(current, id);
+            if (index < 0) {
+                return current;
+            }
+            if (current.length == 1) {
+                return null;
+            }
+            long[] shrunk = new long[current.length - 1];
+            System.arraycopy(current, 0, shrunk, 0, index);
+            System.arraycopy(current, index + 1, shrunk, index, shrunk.length - index);
+            return shrunk;
+        });
+    }
+
+    /**
+     * @return id сущностей, у которых ключ может иметь такой хеш
+     */
+    public long[] candidates(int hash) {
+        return ids.getOrDefault(hash, NONE);
+    }
+
+    private static int indexOf(long[] values, long id) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.util.LongBitmap;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Обратный индекс лайков: у пользователя — сжатая битовая карта понравившихся фильмов, у фильма — карта
+ * поставивших лайк. Опубликованные карты не меняются: изменение собирает копию с одним новым блоком
+ * ({@link LongBitmap#plus}) и подменяет её в карте, поэтому расчёт рекомендаций идёт без блокировок.
+ * Изменения одной пары «фильм — пользователь» упорядочены полосой блокировок по id пользователя,
+ * запись в карту фильма атомарна через {@link ConcurrentMap#compute}.
+ */
+public class LikeIndex {
+    private static final long[] NONE = new long[0];
+    private static final LongBitmap EMPTY = new LongBitmap();
+    private static final int CANDIDATES_PER_NEIGHBOR = 4;
+    private static final int STRIPES = 64;
+
+    private final Object[] stripes = new Object[STRIPES];
+    private final ConcurrentMap<Long, LongBitmap> filmsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LongBitmap> usersByFilm = new ConcurrentHashMap<>();
+    private final AtomicLong likes = new AtomicLong();
+
+    public LikeIndex() {
+        Arrays.setAll(stripes, i -> new Object());
+    }
+
+    public boolean add(long filmId, long userId) {
+        synchronized (stripe(userId)) {
+            return link(filmId, userId);
+        }
+    }
+
+    public boolean remove(long filmId, long userId) {
+        synchronized (stripe(userId)) {
+            return unlink(filmId, userId);
+        }
+    }
+
+    /**
+     * Заменяет множество лайков фильма. Замена не атомарна для читателей: расчёт рекомендаций может увидеть
+     * её частично.
+     */
+    public void replace(long filmId, Collection<Long> userIds) {
+        removeFilm(filmId);
+        for (Long userId : userIds) {
+            add(filmId, userId);
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        LongBitmap users = usersByFilm.get(filmId);
+        if (users != null) {
+            for (long userId : users.toLongArray()) {
+                remove(filmId, userId);
+            }
+        }
+    }
+
+    public long likes() {
+        return likes.get();
+    }
+
+    /**
+     * Фильмы, которые понравились похожим пользователям. Похожесть — число общих лайков: кандидаты набираются
+     * обходом лайкнувших каждый фильм пользователя (не больше {@code maxFanOut} на фильм), затем для лучших
+     * кандидатов пересечение считается точно по битовым картам. Фильм получает сумму похожестей соседей,
+     * которым он понравился; уже лайкнутые пользователем фильмы не предлагаются. Расчёт читает опубликованные
+     * карты без блокировок и может не увидеть изменения, сделанные во время него.
+     *
+     * @return id фильмов по убыванию веса, при равенстве — по возрастанию id
+     */
+    public long[] recommend(long userId, int neighbors, int maxFanOut, int count) {
+        LongBitmap liked = filmsByUser.get(userId);
+        if (liked == null) {
+            return NONE;
+        }
+        LongIntCounter overlap = new LongIntCounter();
+        liked.forEach(filmId -> usersByFilm.getOrDefault(filmId, EMPTY)
+                .forEachSampled(maxFanOut, overlap::increment));
+        TopK candidates = new TopK(neighbors * CANDIDATES_PER_NEIGHBOR);
+        overlap.forEach((candidate, common) -> {
+            if (candidate != userId) {
+                candidates.offer(candidate, common);
+            }
+        });
+        TopK similar = new TopK(neighbors);
+        for (long candidate : candidates.drain()) {
+            similar.offer(candidate, liked.andCardinality(filmsByUser.getOrDefault(candidate, EMPTY)));
+        }
+        LongIntCounter weights = new LongIntCounter();
+        for (long neighbor : similar.drain()) {
+            LongBitmap films = filmsByUser.getOrDefault(neighbor, EMPTY);
+            int similarity = (int) liked.andCardinality(films);
+            films.forEachAndNot(liked, filmId -> weights.add(filmId, similarity));
+        }
+        TopK top = new TopK(count);
+        weights.forEach(top::offer);
+        return top.drain();
+    }
+
+    private boolean link(long filmId, long userId) {
+        boolean[] added = new boolean[1];
+        usersByFilm.compute(filmId, (key, users) -> {
+            LongBitmap current = users == null ? EMPTY : users;
+            LongBitmap updated = current.plus(userId);
+            added[0] = updated != current;
+            return updated == EMPTY ? null : updated;
+        });
+        if (!added[0]) {
+            return false;
+        }
+        filmsByUser.compute(userId, (key, films) -> (films == null ? EMPTY : films).plus(filmId));
+        likes.incrementAndGet();
+        return true;
+    }
+
+    private boolean unlink(long filmId, long userId) {
+        boolean[] removed = new boolean[1];
+        usersByFilm.computeIfPresent(filmId, (key, users) -> {
+            LongBitmap updated = users.minus(userId);
+            removed[0] = updated != users;
+            return updated.isEmpty() ? null : updated;
+        });
+        if (!removed[0]) {
+            return false;
+        }
+        filmsByUser.computeIfPresent(userId, (key, films) -> {
+            LongBitmap updated = films.minus(filmId);
+            return updated.isEmpty() ? null : updated;
+        });
+        likes.decrementAndGet();
+        return true;
+    }
+
+    private Object stripe(long userId) {
+        return stripes[(int) (userId & (STRIPES - 1))];
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг сущностей по счётчику (например, числу лайков), обновляемый инкрементально.
+ * Записи упорядочены по убыванию счётчика, при равенстве — по возрастанию id,
+ * поэтому top-N отдаётся обходом первых N элементов без сортировки всего каталога.
+ * Запись может принадлежать разделу (например, году выпуска) — у каждого раздела свой рейтинг того же вида,
+ * так что top-N внутри раздела стоит столько же, сколько общий.
+ * Обновления одного id сериализуются через {@link ConcurrentMap#compute}, разные id не блокируют друг друга.
+ */
+public class PopularityIndex {
+    public static final int NO_PARTITION = Integer.MIN_VALUE;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::score).reversed()
+            .thenComparingLong(Entry::id);
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentMap<Integer, NavigableSet<Entry>> partitions = new ConcurrentHashMap<>();
+
+    public void put(long id, long score) {
+        put(id, score, NO_PARTITION);
+    }
+
+    public void put(long id, long score, int partition) {
+        entries.compute(id, (key, previous) -> replace(previous, new Entry(id, score, partition)));
+    }
+
+    public void remove(long id) {
+        entries.computeIfPresent(id, (key, previous) -> {
+            ranking.remove(previous);
+            removeFromPartition(previous);
+            return null;
+        });
+    }
+
+    public List<Long> top(int count) {
+        return top(ranking, count);
+    }
+
+    public List<Long> topIn(int partition, int count) {
+        NavigableSet<Entry> partitionRanking = partitions.get(partition);
+        return partitionRanking == null ? List.of() : top(partitionRanking, count);
+    }
+
+    private List<Long> top(NavigableSet<Entry> ranking, int count) {
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(count, entries.size())));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (ids.size() < count && iterator.hasNext()) {
+            long id = iterator.next().id();
+            if (seen.add(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private Entry replace(Entry previous, Entry next) {
+        ranking.add(next);
+        if (next.partition() != NO_PARTITION) {
+            partitions.computeIfAbsent(next.partition(), key -> new ConcurrentSkipListSet<>(ORDER)).add(next);
+        }
+        if (previous != null) {
+            boolean reordered = ORDER.compare(previous, next) != 0;
+            if (reordered) {
+                ranking.remove(previous);
+            }
+            if (reordered || previous.partition() != next.partition()) {
+                removeFromPartition(previous);
+            }
+        }
+        return next;
+    }
+
+    private void removeFromPartition(Entry entry) {
+        NavigableSet<Entry> partitionRanking = partitions.get(entry.partition());
+        if (partitionRanking != null) {
+            partitionRanking.remove(entry);
+        }
+    }
+
+    private record Entry(long id, long score, int partition) {
+    }
+}
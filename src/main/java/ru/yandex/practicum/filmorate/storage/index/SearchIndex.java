@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.util.LongBitmap;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названию и описанию фильмов. Текст делится на слова из букв и цифр, приводится к нижнему
+ * регистру, «ё» заменяется на «е». Для каждого слова словаря хранятся две сжатые битовые карты id — фильмы
+ * со словом в названии и в описании, а для каждого фильма — номера его слов, чтобы обновление и удаление
+ * не требовали прежней версии фильма. Слово, у которого не осталось фильмов, удаляется из словаря, а его номер
+ * достаётся следующему новому слову. Слова запроса от {@value #PREFIX_MIN_LENGTH} символов совпадают
+ * и как префиксы. Изменения идут под блокировкой на запись, поиск — под блокировкой на чтение.
+ */
+public class SearchIndex {
+    public static final int PREFIX_MIN_LENGTH = 2;
+    private static final int NAME_EXACT = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int DESCRIPTION_EXACT = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+    private static final long[] NONE = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Integer> dictionary = new TreeMap<>();
+    private final List<Posting> postings = new ArrayList<>();
+    private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+    private final Map<Long, int[]> termsByFilm = new HashMap<>();
+    private final LongIntCounter likes = new LongIntCounter();
+
+    /**
+     * @return слова текста в порядке появления, без повторов
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Индексирует фильм заново, заменяя прежние слова.
+     */
+    public void put(long filmId, String name, String description, int likeCount) {
+        Set<String> nameTokens = tokenize(name);
+        Set<String> descriptionTokens = tokenize(description);
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            unlink(filmId);
+            int[] terms = new int[nameTokens.size() + descriptionTokens.size()];
+            int size = 0;
+            for (String token : nameTokens) {
+                int termId = termId(token);
+                postings.get(termId).names.add(filmId);
+                terms[size++] = ~termId;
+            }
+            for (String token : descriptionTokens) {
+                int termId = termId(token);
+                postings.get(termId).descriptions.add(filmId);
+                terms[size++] = termId;
+            }
+            termsByFilm.put(filmId, terms);
+            setLikes(filmId, likeCount);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(long filmId) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            unlink(filmId);
+            likes.remove(filmId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void addLikes(long filmId, int delta) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (termsByFilm.containsKey(filmId)) {
+                likes.add(filmId, delta);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return termsByFilm.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int termCount() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return dictionary.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Фильмы, где встречаются все слова запроса. За каждое слово фильм получает лучший из баллов: точное
+     * совпадение в названии, префикс в названии, точное в описании, префикс в описании. Порядок — по сумме
+     * баллов, затем по числу лайков, затем по возрастанию id.
+     */
+    public long[] search(String query, int count) {
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return NONE;
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            LongIntCounter matches = null;
+            for (String token : tokens) {
+                LongIntCounter tokenMatches = match(token);
+                matches = matches == null ? tokenMatches : intersect(matches, tokenMatches);
+                if (matches.size() == 0) {
+                    return NONE;
+                }
+            }
+            TopK top = new TopK(count);
+            matches.forEach((filmId, quality) ->
+                    top.offer(filmId, (long) quality << 32 | (likes.get(filmId) & 0xFFFFFFFFL)));
+            return top.drain();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private LongIntCounter match(String token) {
+        LongIntCounter scores = new LongIntCounter();
+        Map<String, Integer> terms = token.length() >= PREFIX_MIN_LENGTH
+                ? dictionary.subMap(token, true, token + Character.MAX_VALUE, false)
+                : dictionary.containsKey(token) ? Map.of(token, dictionary.get(token)) : Map.of();
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            boolean exact = term.getKey().equals(token);
+            Posting posting = postings.get(term.getValue());
+            int nameScore = exact ? NAME_EXACT : NAME_PREFIX;
+            posting.names.forEach(filmId -> raise(scores, filmId, nameScore));
+            int descriptionScore = exact ? DESCRIPTION_EXACT : DESCRIPTION_PREFIX;
+            posting.descriptions.forEach(filmId -> raise(scores, filmId, descriptionScore));
+        }
+        return scores;
+    }
+
+    private static void raise(LongIntCounter scores, long filmId, int score) {
+        int current = scores.get(filmId);
+        if (score > current) {
+            scores.add(filmId, score - current);
+        }
+    }
+
+    private static LongIntCounter intersect(LongIntCounter first, LongIntCounter second) {
+        LongIntCounter smaller = first.size() <= second.size() ? first : second;
+        LongIntCounter larger = smaller == first ? second : first;
+        LongIntCounter common = new LongIntCounter(smaller.size());
+        smaller.forEach((filmId, score) -> {
+            int other = larger.get(filmId);
+            if (other > 0) {
+                common.add(filmId, score + other);
+            }
+        });
+        return common;
+    }
+
+    private int termId(String token) {
+        Integer termId = dictionary.get(token);
+        if (termId == null) {
+            termId = freeTermIds.poll();
+            if (termId == null) {
+                termId = postings.size();
+                postings.add(null);
+            }
+            dictionary.put(token, termId);
+            postings.set(termId, new Posting(token));
+        }
+        return termId;
+    }
+
+    private void unlink(long filmId) {
+        int[] terms = termsByFilm.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (int term : terms) {
+            int termId = term < 0 ? ~term : term;
+            Posting posting = postings.get(termId);
+            (term < 0 ? posting.names : posting.descriptions).remove(filmId);
+            if (posting.names.isEmpty() && posting.descriptions.isEmpty()) {
+                dictionary.remove(posting.term);
+                postings.set(termId, null);
+                freeTermIds.push(termId);
+            }
+        }
+    }
+
+    private void setLikes(long filmId, int likeCount) {
+        likes.add(filmId, likeCount - likes.get(filmId));
+    }
+
+    private static final class Posting {
+        private final String term;
+        private final LongBitmap names = new LongBitmap();
+        private final LongBitmap descriptions = new LongBitmap();
+
+        private Posting(String term) {
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Счётчики событий по id за скользящее окно: кольцо корзин фиксированной ширины, в каждой — приращения
+ * за её интервал. Сумма по окну и рейтинг {@link PopularityIndex} поддерживаются инкрементально: при сдвиге окна
+ * вычитается только вытесненная корзина. Память ограничена числом корзин и числом id, у которых были события
+ * в окне, и не зависит от числа событий. Время передаётся в миллисекундах эпохи.
+ * Отрицательное приращение (снятый лайк) гасит события этого id в окне, начиная с самой свежей корзины,
+ * и не больше, чем их там есть: отмена события, случившегося до окна, сумму не уменьшает, поэтому корзины
+ * и сумма по окну никогда не бывают отрицательными.
+ */
+public class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final LongIntCounter[] buckets;
+    private final LongIntCounter totals = new LongIntCounter();
+    private final PopularityIndex ranking = new PopularityIndex();
+    private long currentBucket;
+
+    public SlidingWindowCounter(Duration window, int bucketCount) {
+        this.bucketMillis = window.toMillis() / bucketCount;
+        this.buckets = new LongIntCounter[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new LongIntCounter();
+        }
+    }
+
+    public synchronized void add(long id, int delta, long nowMillis) {
+        advance(nowMillis);
+        if (delta < 0) {
+            cancel(id, -delta);
+            return;
+        }
+        buckets[(int) (currentBucket % buckets.length)].add(id, delta);
+        totals.add(id, delta);
+        rank(id);
+    }
+
+    /**
+     * Забывает id во всех корзинах, например при удалении фильма.
+     */
+    public synchronized void remove(long id) {
+        for (LongIntCounter bucket : buckets) {
+            bucket.remove(id);
+        }
+        totals.remove(id);
+        ranking.remove(id);
+    }
+
+    /**
+     * @return id с наибольшей положительной суммой за окно, при равенстве — по возрастанию id
+     */
+    public List<Long> top(int count, long nowMillis) {
+        synchronized (this) {
+            advance(nowMillis);
+        }
+        return ranking.top(count);
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (bucket <= currentBucket) {
+            return;
+        }
+        long expired = Math.min(bucket - currentBucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            int index = (int) ((currentBucket + i) % buckets.length);
+            LongIntCounter outdated = buckets[index];
+            if (outdated.size() > 0) {
+                outdated.forEach((id, count) -> {
+                    totals.add(id, -count);
+                    rank(id);
+                });
+                buckets[index] = new LongIntCounter();
+            }
+        }
+        currentBucket = bucket;
+    }
+
+    private void cancel(long id, int count) {
+        int remaining = Math.min(count, totals.get(id));
+        for (int i = 0; i < buckets.length && remaining > 0; i++) {
+            LongIntCounter bucket = buckets[Math.floorMod(currentBucket - i, buckets.length)];
+            int cancelled = Math.min(remaining, bucket.get(id));
+            if (cancelled > 0) {
+                bucket.add(id, -cancelled);
+                if (bucket.get(id) == 0) {
+                    bucket.remove(id);
+                }
+                totals.add(id, -cancelled);
+                remaining -= cancelled;
+            }
+        }
+        rank(id);
+    }
+
+    private void rank(long id) {
+        int total = totals.get(id);
+        if (total == 0) {
+            totals.remove(id);
+        }
+        if (total > 0) {
+            ranking.put(id, total);
+        } else {
+            ranking.remove(id);
+        }
+    }
+}
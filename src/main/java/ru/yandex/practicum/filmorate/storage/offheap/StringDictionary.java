@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Словарь строк вне кучи. Каждая уникальная строка хранится один раз в UTF-8 в блоках
+ * {@link ByteBuffer#allocateDirect}, а наружу отдаётся ссылкой-числом. Хеш-таблица для поиска дубликатов
+ * тоже лежит вне кучи и содержит только ссылки. У записи есть счётчик ссылок: каждый {@link #intern} его
+ * увеличивает, {@link #release} уменьшает, а на нуле запись удаляется из таблицы и её место уходит в список
+ * свободных ячеек своего размера (размеры — степени двойки) для следующих строк.
+ * Запись сериализована, чтение по ссылке не блокируется и допустимо, пока ссылка не отпущена.
+ */
+public class StringDictionary {
+    public static final long NULL = 0;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int HASH = 0;
+    private static final int LENGTH = Integer.BYTES;
+    private static final int REFERENCES = 2 * Integer.BYTES;
+    private static final int ENTRY_HEADER = 3 * Integer.BYTES;
+    private static final int MIN_ENTRY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private final long[] free = new long[Integer.SIZE];
+    private ByteBuffer current;
+    private ByteBuffer table = ByteBuffer.allocateDirect(INITIAL_CAPACITY * Long.BYTES);
+    private int capacity = INITIAL_CAPACITY;
+    private int size;
+
+    public synchronized long intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = Arrays.hashCode(bytes);
+        int mask = capacity - 1;
+        int slot = mix(hash) & mask;
+        long ref;
+        while ((ref = table.getLong(slot * Long.BYTES)) != NULL) {
+            if (matches(ref, hash, bytes)) {
+                ByteBuffer chunk = chunk(ref);
+                chunk.putInt((int) ref + REFERENCES, chunk.getInt((int) ref + REFERENCES) + 1);
+                return ref;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ref = allocate(ENTRY_HEADER + bytes.length);
+        chunk(ref).putInt((int) ref + HASH, hash)
+                .putInt((int) ref + LENGTH, bytes.length)
+                .putInt((int) ref + REFERENCES, 1)
+                .put((int) ref + ENTRY_HEADER, bytes);
+        table.putLong(slot * Long.BYTES, ref);
+        if (++size > capacity * LOAD_FACTOR) {
+            rehash(capacity * 2);
+        }
+        return ref;
+    }
+
+    /**
+     * Отпускает ссылку, полученную из {@link #intern}. После последнего освобождения место строки
+     * может быть отдано другой строке, поэтому читать по отпущенной ссылке нельзя.
+     */
+    public synchronized void release(long ref) {
+        if (ref == NULL) {
+            return;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = (int) ref;
+        int references = chunk.getInt(offset + REFERENCES) - 1;
+        if (references > 0) {
+            chunk.putInt(offset + REFERENCES, references);
+            return;
+        }
+        int mask = capacity - 1;
+        int slot = mix(chunk.getInt(offset + HASH)) & mask;
+        while (table.getLong(slot * Long.BYTES) != ref) {
+            slot = (slot + 1) & mask;
+        }
+        removeSlot(slot);
+        size--;
+        int sizeClass = sizeClass(ENTRY_HEADER + chunk.getInt(offset + LENGTH));
+        chunk.putLong(offset, free[sizeClass]);
+        free[sizeClass] = ref;
+    }
+
+    public String get(long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(offset + LENGTH)];
+        chunk.get(offset + ENTRY_HEADER, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long offHeapBytes() {
+        long bytes = table.capacity();
+        for (ByteBuffer chunk : chunks) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    private ByteBuffer chunk(long ref) {
+        return chunks[(int) (ref >>> 32) - 1];
+    }
+
+    private boolean matches(long ref, int hash, byte[] bytes) {
+        ByteBuffer chunk = chunk(ref);
+        int offset = (int) ref;
+        if (chunk.getInt(offset + HASH) != hash || chunk.getInt(offset + LENGTH) != bytes.length) {
+            return false;
+        }
+        return chunk.slice(offset + ENTRY_HEADER, bytes.length).equals(ByteBuffer.wrap(bytes));
+    }
+
+    private long allocate(int required) {
+        int sizeClass = sizeClass(required);
+        long ref = free[sizeClass];
+        if (ref != NULL) {
+            free[sizeClass] = chunk(ref).getLong((int) ref);
+            return ref;
+        }
+        int entrySize = 1 << sizeClass;
+        if (current == null || current.remaining() < entrySize) {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, entrySize));
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[grown.length - 1] = current;
+            chunks = grown;
+        }
+        ref = ((long) chunks.length << 32) | current.position();
+        current.position(current.position() + entrySize);
+        return ref;
+    }
+
+    private void removeSlot(int slot) {
+        int mask = capacity - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long ref = table.getLong(next * Long.BYTES);
+            if (ref == NULL) {
+                break;
+            }
+            int home = mix(chunk(ref).getInt((int) ref + HASH)) & mask;
+            boolean movable = slot <= next ? home <= slot || home > next : home <= slot && home > next;
+            if (movable) {
+                table.putLong(slot * Long.BYTES, ref);
+                slot = next;
+            }
+        }
+        table.putLong(slot * Long.BYTES, NULL);
+    }
+
+    private void rehash(int newCapacity) {
+        ByteBuffer newTable = ByteBuffer.allocateDirect(newCapacity * Long.BYTES);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            long ref = table.getLong(i * Long.BYTES);
+            if (ref == NULL) {
+                continue;
+            }
+            int hash = chunk(ref).getInt((int) ref + HASH);
+            int slot = mix(hash) & mask;
+            while (newTable.getLong(slot * Long.BYTES) != NULL) {
+                slot = (slot + 1) & mask;
+            }
+            newTable.putLong(slot * Long.BYTES, ref);
+        }
+        table = newTable;
+        capacity = newCapacity;
+    }
+
+    private static int sizeClass(int required) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(required, MIN_ENTRY_SIZE) - 1);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Долговечное хранилище, которое умеет снимать снимок и обрезать покрытую им часть журнала.
+ */
+public interface Checkpointable extends Closeable {
+
+    void checkpoint() throws IOException;
+}
@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.AbstractModel;
+import ru.yandex.practicum.filmorate.storage.impl.AbstractInMemorySetStorage;
+import ru.yandex.practicum.filmorate.storage.impl.AbstractInMemoryStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Журнал одного in-memory хранилища: каталог со снимком и сегментами {@link WriteAheadLog}.
+ * При старте снимок не читается целиком, а подключается к хранилищу как {@link MappedSnapshot}.
+ * Снимок «нечёткий» — снимается без остановки записи сразу после ротации журнала, поэтому часть изменений
+ * из нового сегмента может в нём уже оказаться. Записи журнала несут полное состояние сущности, её удаление
+ * или добавление и удаление одного элемента её множества, так что повторное применение поверх снимка идемпотентно.
+ */
+@Slf4j
+public class DurableJournal<M extends AbstractModel> implements StorageJournal<M>, Checkpointable {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final byte ADD_ELEMENT = 3;
+    private static final byte REMOVE_ELEMENT = 4;
+
+    private final Path directory;
+    private final EntityCodec<M> codec;
+    private final AbstractInMemoryStorage<M> storage;
+    private final WriteAheadLog wal;
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    private DurableJournal(Path directory, EntityCodec<M> codec, AbstractInMemoryStorage<M> storage,
+                           WriteAheadLog wal) {
+        this.directory = directory;
+        this.codec = codec;
+        this.storage = storage;
+        this.wal = wal;
+    }
+
+    /**
+     * Восстанавливает хранилище из последнего снимка и хвоста журнала, затем подключает к нему журнал.
+     */
+    public static <M extends AbstractModel> DurableJournal<M> open(Path directory, EntityCodec<M> codec,
+                                                                   AbstractInMemoryStorage<M> storage,
+                                                                   FsyncPolicy fsyncPolicy, Duration fsyncInterval)
+            throws IOException {
+        long started = System.nanoTime();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long fromSegment = 0;
+        long restored = 0;
+        if (Files.exists(snapshot)) {
+            MappedSnapshot<M> mapped = MappedSnapshot.open(snapshot, codec);
+            storage.attachSnapshot(mapped);
+            fromSegment = mapped.header().walSegment();
+            restored = mapped.size();
+        }
+        long replayed = WriteAheadLog.replay(directory, fromSegment, (type, payload) -> apply(storage, codec,
+                type, payload));
+        log.info("Хранилище {} восстановлено: {} записей из снимка, {} из журнала за {} мс", directory, restored,
+                replayed, Duration.ofNanos(System.nanoTime() - started).toMillis());
+        DurableJournal<M> journal = new DurableJournal<>(directory, codec, storage,
+                WriteAheadLog.open(directory, fsyncPolicy, fsyncInterval));
+        storage.attachJournal(journal);
+        return journal;
+    }
+
+    @Override
+    public void mutate(Runnable mutation) {
+        Lock lock = rotationLock.readLock();
+        lock.lock();
+        try {
+            mutation.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long logSave(M model) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            codec.encode(model, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return wal.append(SAVE, bytes.toByteArray());
+    }
+
+    @Override
+    public long logDelete(long id) {
+        return wal.append(DELETE, ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    @Override
+    public long logElement(long id, long element, boolean add) {
+        return wal.append(add ? ADD_ELEMENT : REMOVE_ELEMENT,
+                ByteBuffer.allocate(2 * Long.BYTES).putLong(id).putLong(element).array());
+    }
+
+    @Override
+    public void awaitDurable(long ticket) {
+        wal.awaitDurable(ticket);
+    }
+
+    /**
+     * Снимает снимок и удаляет сегменты журнала, которые им покрыты.
+     */
+    @Override
+    public synchronized void checkpoint() throws IOException {
+        long started = System.nanoTime();
+        long segment;
+        Lock lock = rotationLock.writeLock();
+        lock.lock();
+        try {
+            segment = wal.rotate();
+        } finally {
+            lock.unlock();
+        }
+        long count = SnapshotFile.write(directory.resolve(SNAPSHOT_FILE),
+                new SnapshotFile.Header(segment, storage.currentSequence()), storage.values(), codec);
+        wal.deleteSegmentsBefore(segment);
+        log.info("Снимок {} записан: {} записей за {} мс", directory, count,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Override
+    public void close() throws IOException {
+        storage.attachJournal(StorageJournal.none());
+        wal.close();
+    }
+
+    private static <M extends AbstractModel> void apply(AbstractInMemoryStorage<M> storage, EntityCodec<M> codec,
+                                                        byte type, ByteBuffer payload) {
+        switch (type) {
+            case SAVE -> storage.restore(codec.decode(payload));
+            case DELETE -> storage.delete(payload.getLong());
+            case ADD_ELEMENT, REMOVE_ELEMENT -> applyElement(storage, payload.getLong(), payload.getLong(),
+                    type == ADD_ELEMENT);
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    /**
+     * Сущность могла быть удалена позже по журналу, но уже отсутствовать в нечётком снимке — тогда
+     * изменение элемента пропускается.
+     */
+    private static void applyElement(AbstractInMemoryStorage<?> storage, long id, long element, boolean add) {
+        if (!(storage instanceof AbstractInMemorySetStorage<?> sets)) {
+            throw new IllegalStateException("Журнал содержит изменение элемента, а хранилище "
+                    + storage.getClass().getSimpleName() + " их не поддерживает");
+        }
+        try {
+            sets.changeElement(id, element, add);
+        } catch (NoSuchElementException e) {
+            log.debug("Пропущено изменение удалённой сущности {}", id);
+        }
+    }
+}
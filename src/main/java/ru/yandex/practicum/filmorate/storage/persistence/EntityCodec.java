@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface EntityCodec<M> {
+
+    void encode(M model, DataOutput out) throws IOException;
+
+    M decode(ByteBuffer in);
+
+    /**
+     * Число, которое снимок сохраняет в индексе рядом с id, чтобы строить рейтинги без декодирования записей.
+     */
+    default long score(M model) {
+        return 0;
+    }
+}
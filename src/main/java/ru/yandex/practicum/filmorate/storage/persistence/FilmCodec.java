@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static ru.yandex.practicum.filmorate.storage.persistence.BinaryFormat.*;
+
+/**
+ * Счёт фильма в индексе снимка: число лайков в младших 32 битах, в старших — год выпуска со сдвигом
+ * {@code YEAR_OFFSET} или {@code NO_RELEASE_DATE}.
+ */
+public class FilmCodec implements EntityCodec<Film> {
+    private static final int NO_RELEASE_DATE = 1;
+    private static final int YEAR_OFFSET = 2;
+
+    @Override
+    public void encode(Film film, DataOutput out) throws IOException {
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        writeInteger(out, film.getDuration());
+        writeLongs(out, film.getLikes().toLongArray());
+    }
+
+    @Override
+    public Film decode(ByteBuffer in) {
+        Film film = new Film();
+        film.setId(in.getLong());
+        film.setName(readString(in));
+        film.setDescription(readString(in));
+        film.setReleaseDate(readDate(in));
+        film.setDuration(readInteger(in));
+        for (long userId : readLongs(in)) {
+            film.addLike(userId);
+        }
+        return film;
+    }
+
+    @Override
+    public long score(Film film) {
+        int year = film.getReleaseDate() == null ? NO_RELEASE_DATE : film.getReleaseDate().getYear() + YEAR_OFFSET;
+        return (long) year << 32 | film.getLikeCount();
+    }
+
+    public static long likes(long score) {
+        return score & 0xFFFF_FFFFL;
+    }
+
+    /**
+     * @return год выпуска или {@link PopularityIndex#NO_PARTITION}, если даты выпуска нет
+     */
+    public static int releaseYear(long score) {
+        int year = (int) (score >>> 32);
+        return year == NO_RELEASE_DATE ? PopularityIndex.NO_PARTITION : year - YEAR_OFFSET;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.storage.graph.Csr;
+import ru.yandex.practicum.filmorate.storage.graph.EdgeLog;
+import ru.yandex.practicum.filmorate.storage.graph.FriendshipGraph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Журнал графа дружбы: снимок CSR в {@link GraphSnapshotFile} и сегменты {@link WriteAheadLog}
+ * с добавлениями и удалениями рёбер. Снимок точный: журнал переключается на новый сегмент в момент
+ * заморозки дельт графа, поэтому уплотнённый CSR содержит ровно изменения из предыдущих сегментов.
+ */
+@Slf4j
+public class FriendshipJournal implements EdgeLog, Checkpointable {
+    private static final String SNAPSHOT_FILE = "graph.bin";
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path directory;
+    private final FriendshipGraph graph;
+    private final WriteAheadLog wal;
+
+    private FriendshipJournal(Path directory, FriendshipGraph graph, WriteAheadLog wal) {
+        this.directory = directory;
+        this.graph = graph;
+        this.wal = wal;
+    }
+
+    /**
+     * Восстанавливает граф из последнего снимка и хвоста журнала, затем подключает к нему журнал.
+     */
+    public static FriendshipJournal open(Path directory, FriendshipGraph graph, FsyncPolicy fsyncPolicy,
+                                         Duration fsyncInterval) throws IOException {
+        long started = System.nanoTime();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long fromSegment = 0;
+        if (Files.exists(snapshot)) {
+            GraphSnapshotFile.Snapshot restored = GraphSnapshotFile.read(snapshot);
+            graph.load(restored.graph());
+            fromSegment = restored.walSegment();
+        }
+        long replayed = WriteAheadLog.replay(directory, fromSegment, (type, payload) -> apply(graph, type,
+                payload));
+        log.info("Граф дружбы {} восстановлен: {} рёбер из снимка, {} записей из журнала за {} мс", directory,
+                graph.edges(), replayed, Duration.ofNanos(System.nanoTime() - started).toMillis());
+        FriendshipJournal journal = new FriendshipJournal(directory, graph,
+                WriteAheadLog.open(directory, fsyncPolicy, fsyncInterval));
+        graph.attachLog(journal);
+        return journal;
+    }
+
+    @Override
+    public long logAdd(long userId, long friendId) {
+        return wal.append(ADD, edge(userId, friendId));
+    }
+
+    @Override
+    public long logRemove(long userId, long friendId) {
+        return wal.append(REMOVE, edge(userId, friendId));
+    }
+
+    @Override
+    public void awaitDurable(long ticket) {
+        wal.awaitDurable(ticket);
+    }
+
+    /**
+     * Уплотняет граф, записывает его снимок и удаляет сегменты журнала, которые им покрыты.
+     */
+    @Override
+    public synchronized void checkpoint() throws IOException {
+        long started = System.nanoTime();
+        long[] segment = new long[1];
+        Csr compacted;
+        try {
+            compacted = graph.compact(() -> {
+                try {
+                    segment[0] = wal.rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        GraphSnapshotFile.write(directory.resolve(SNAPSHOT_FILE), segment[0], compacted);
+        wal.deleteSegmentsBefore(segment[0]);
+        log.info("Снимок графа {} записан: {} рёбер за {} мс", directory, compacted.edges(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Override
+    public void close() throws IOException {
+        graph.attachLog(EdgeLog.NONE);
+        wal.close();
+    }
+
+    private static byte[] edge(long userId, long friendId) {
+        return ByteBuffer.allocate(2 * Long.BYTES).putLong(userId).putLong(friendId).array();
+    }
+
+    private static void apply(FriendshipGraph graph, byte type, ByteBuffer payload) {
+        long userId = payload.getLong();
+        long friendId = payload.getLong();
+        switch (type) {
+            case ADD -> graph.addFriend(userId, friendId);
+            case REMOVE -> graph.removeFriend(userId, friendId);
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+}
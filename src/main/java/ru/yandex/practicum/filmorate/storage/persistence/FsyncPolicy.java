@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+public enum FsyncPolicy {
+    /**
+     * Запрос подтверждается только после fsync пачки, в которую попала его запись.
+     */
+    ALWAYS,
+    /**
+     * fsync не чаще заданного интервала; при падении ОС теряется не больше интервала записей.
+     */
+    INTERVAL,
+    /**
+     * fsync выполняется только при ротации и закрытии журнала, сброс на диск остаётся за ОС.
+     */
+    NEVER
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.storage.graph.Csr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Снимок графа дружбы — массивы {@link Csr} как есть:
+ * <pre>
+ * заголовок: MAGIC, VERSION, номер сегмента журнала для продолжения проигрывания, число вершин n, число рёбер m
+ * данные:    int offsets[n + 1], int targets[m]
+ * хвост:     CRC32 данных
+ * </pre>
+ * Файл пишется во временный и атомарно переименовывается, читается через {@link MappedByteBuffer}
+ * массовым копированием в массивы.
+ */
+public final class GraphSnapshotFile {
+    private static final int MAGIC = 0x46534E47;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES;
+    private static final int CHUNK = 1 << 16;
+
+    public record Snapshot(long walSegment, Csr graph) {
+    }
+
+    private GraphSnapshotFile() {
+    }
+
+    public static void write(Path path, long walSegment, Csr graph) throws IOException {
+        long size = HEADER_SIZE + ((long) graph.nodes() + 1 + graph.edges()) * Integer.BYTES + Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Снимок графа " + path + " превысил бы 2 ГБ и не может быть записан");
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(walSegment)
+                    .putInt(graph.nodes())
+                    .putInt(graph.edges())
+                    .flip();
+            writeFully(channel, header);
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK * Integer.BYTES);
+            writeInts(channel, buffer, graph.offsets(), checksum);
+            writeInts(channel, buffer, graph.targets(), checksum);
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES).putInt((int) checksum.getValue()).flip());
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        SnapshotFile.syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    public static Snapshot read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Снимок графа больше 2 ГБ не поддерживается: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE + Integer.BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Неизвестный формат снимка графа: " + path);
+        }
+        long walSegment = buffer.getLong(2 * Integer.BYTES);
+        int nodes = buffer.getInt(2 * Integer.BYTES + Long.BYTES);
+        int edges = buffer.getInt(3 * Integer.BYTES + Long.BYTES);
+        long dataSize = ((long) nodes + 1 + edges) * Integer.BYTES;
+        if (nodes < 0 || edges < 0 || HEADER_SIZE + dataSize + Integer.BYTES != buffer.limit()) {
+            throw new IOException("Снимок графа повреждён: " + path);
+        }
+        ByteBuffer data = buffer.slice(HEADER_SIZE, (int) dataSize);
+        CRC32 checksum = new CRC32();
+        checksum.update(data.duplicate());
+        if ((int) checksum.getValue() != buffer.getInt(HEADER_SIZE + (int) dataSize)) {
+            throw new IOException("Снимок графа повреждён: " + path);
+        }
+        IntBuffer ints = data.asIntBuffer();
+        int[] offsets = new int[nodes + 1];
+        int[] targets = new int[edges];
+        ints.get(offsets).get(targets);
+        return new Snapshot(walSegment, new Csr(offsets, targets));
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, CRC32 checksum)
+            throws IOException {
+        for (int from = 0; from < values.length; from += CHUNK) {
+            int length = Math.min(CHUNK, values.length - from);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, from, length);
+            buffer.limit(length * Integer.BYTES);
+            checksum.update(buffer.duplicate());
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
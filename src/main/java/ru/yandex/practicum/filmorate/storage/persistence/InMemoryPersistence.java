@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Режим долговечности in-memory хранилищ: при старте восстанавливает фильмы, пользователей и граф дружбы
+ * из каталога {@code filmorate.persistence.directory}, затем журналирует изменения и периодически снимает снимки.
+ */
+@Slf4j
+@Component
+@Profile("!db & !offheap")
+@ConditionalOnProperty(value = "filmorate.persistence.enabled", havingValue = "true")
+public class InMemoryPersistence {
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryFriendshipStorage friendshipStorage;
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final Duration snapshotInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private List<Checkpointable> journals = List.of();
+
+    public InMemoryPersistence(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage,
+                               InMemoryFriendshipStorage friendshipStorage,
+                               @Value("${filmorate.persistence.directory:./data}") Path directory,
+                               @Value("${filmorate.persistence.fsync:interval}") FsyncPolicy fsyncPolicy,
+                               @Value("${filmorate.persistence.fsync-interval:50ms}") Duration fsyncInterval,
+                               @Value("${filmorate.persistence.snapshot-interval:10m}") Duration snapshotInterval) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.friendshipStorage = friendshipStorage;
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journals = List.of(
+                DurableJournal.open(directory.resolve("films"), new FilmCodec(), filmStorage, fsyncPolicy,
+                        fsyncInterval),
+                DurableJournal.open(directory.resolve("users"), new UserCodec(), userStorage, fsyncPolicy,
+                        fsyncInterval),
+                FriendshipJournal.open(directory.resolve("friendships"), friendshipStorage, fsyncPolicy,
+                        fsyncInterval));
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpoint, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkpoint() {
+        for (Checkpointable journal : journals) {
+            try {
+                journal.checkpoint();
+            } catch (IOException | RuntimeException e) {
+                log.error("Не удалось снять снимок хранилища", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        checkpoint();
+        for (Checkpointable journal : journals) {
+            journal.close();
+        }
+    }
+}
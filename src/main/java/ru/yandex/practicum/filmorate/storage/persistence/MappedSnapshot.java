@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Снимок, открытый через {@link MappedByteBuffer}: при открытии проверяется только индекс,
+ * а запись декодируется, когда к ней впервые обращаются. Страницы файла подгружает ОС по мере чтения,
+ * поэтому время открытия не зависит от объёма данных. Все чтения абсолютные, экземпляр потокобезопасен.
+ */
+public final class MappedSnapshot<M> {
+    private static final MappedSnapshot<?> EMPTY = new MappedSnapshot<>(null, new SnapshotFile.Header(0, 0),
+            LongBuffer.allocate(0), LongBuffer.allocate(1), LongBuffer.allocate(0), null);
+
+    private final ByteBuffer data;
+    private final SnapshotFile.Header header;
+    private final LongBuffer ids;
+    private final LongBuffer offsets;
+    private final LongBuffer scores;
+    private final EntityCodec<M> codec;
+
+    private MappedSnapshot(ByteBuffer data, SnapshotFile.Header header, LongBuffer ids, LongBuffer offsets,
+                           LongBuffer scores, EntityCodec<M> codec) {
+        this.data = data;
+        this.header = header;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.scores = scores;
+        this.codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <M> MappedSnapshot<M> empty() {
+        return (MappedSnapshot<M>) EMPTY;
+    }
+
+    public static <M> MappedSnapshot<M> open(Path path, EntityCodec<M> codec) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > SnapshotFile.MAX_SIZE) {
+                throw new IOException("Снимок больше 2 ГБ не поддерживается: " + path);
+            }
+            if (channel.size() < SnapshotFile.HEADER_SIZE + SnapshotFile.TRAILER_SIZE) {
+                throw new IOException("Снимок повреждён: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != SnapshotFile.MAGIC || buffer.getInt(Integer.BYTES) != SnapshotFile.VERSION) {
+            throw new IOException("Неизвестный формат снимка: " + path);
+        }
+        SnapshotFile.Header header = new SnapshotFile.Header(buffer.getLong(2 * Integer.BYTES),
+                buffer.getLong(2 * Integer.BYTES + Long.BYTES));
+        int trailer = buffer.limit() - SnapshotFile.TRAILER_SIZE;
+        long indexOffset = buffer.getLong(trailer);
+        long count = buffer.getLong(trailer + Long.BYTES);
+        int indexCrc = buffer.getInt(trailer + 2 * Long.BYTES);
+        long indexSize = (3 * count + 1) * Long.BYTES;
+        if (buffer.getInt(trailer + 2 * Long.BYTES + Integer.BYTES) != SnapshotFile.MAGIC
+                || count < 0 || indexOffset < SnapshotFile.HEADER_SIZE || indexOffset + indexSize != trailer) {
+            throw new IOException("Снимок повреждён: " + path);
+        }
+        ByteBuffer index = buffer.slice((int) indexOffset, (int) indexSize);
+        CRC32 checksum = new CRC32();
+        checksum.update(index.duplicate());
+        if ((int) checksum.getValue() != indexCrc) {
+            throw new IOException("Индекс снимка повреждён: " + path);
+        }
+        int n = (int) count;
+        LongBuffer ids = index.slice(0, n * Long.BYTES).asLongBuffer();
+        LongBuffer offsets = index.slice(n * Long.BYTES, (n + 1) * Long.BYTES).asLongBuffer();
+        LongBuffer scores = index.slice((2 * n + 1) * Long.BYTES, n * Long.BYTES).asLongBuffer();
+        return new MappedSnapshot<>(buffer, header, ids, offsets, scores, codec);
+    }
+
+    public SnapshotFile.Header header() {
+        return header;
+    }
+
+    public int size() {
+        return ids.limit();
+    }
+
+    public long idAt(int position) {
+        return ids.get(position);
+    }
+
+    public long scoreAt(int position) {
+        return scores.get(position);
+    }
+
+    public boolean contains(long id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * @return позиция первой записи с id больше {@code id}
+     */
+    public int positionAfter(long id) {
+        int position = indexOf(id);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    public M decode(long id) {
+        int position = indexOf(id);
+        if (position < 0) {
+            return null;
+        }
+        int offset = (int) offsets.get(position);
+        return codec.decode(data.slice(offset, (int) offsets.get(position + 1) - offset));
+    }
+
+    private int indexOf(long id) {
+        int low = 0;
+        int high = ids.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = ids.get(middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.AbstractModel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Компактный двоичный снимок хранилища, рассчитанный на чтение через {@link MappedSnapshot}:
+ * <pre>
+ * заголовок: MAGIC, VERSION, номер сегмента журнала для продолжения проигрывания, значение генератора id
+ * данные:    закодированные записи подряд, по возрастанию id
+ * индекс:    long id[n], long offset[n + 1], long score[n] — выровнен по 8 байтам
+ * хвост:     смещение индекса, n, CRC32 индекса, MAGIC
+ * </pre>
+ * Файл пишется во временный и атомарно переименовывается. Снимок отображается в память одним буфером,
+ * поэтому больше {@link #MAX_SIZE} байт он не записывается: такой снимок сервис не смог бы открыть.
+ */
+public final class SnapshotFile {
+    static final int MAGIC = 0x46534E50;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+    static final int TRAILER_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    public record Header(long walSegment, long sequence) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * @param models сущности в порядке возрастания id
+     */
+    public static <M extends AbstractModel> long write(
+            Path path, Header header, Iterable<M> models, EntityCodec<M> codec) throws IOException {
+        return write(path, header, models, codec, MAX_SIZE);
+    }
+
+    /**
+     * @throws IOException если снимок вышел бы больше {@code maxSize} байт; прежний снимок при этом не трогается
+     */
+    static <M extends AbstractModel> long write(Path path, Header header, Iterable<M> models, EntityCodec<M> codec,
+                                                long maxSize) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = 0;
+        long[] ids = new long[1024];
+        long[] offsets = new long[1025];
+        long[] scores = new long[1024];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(header.walSegment());
+            out.writeLong(header.sequence());
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            for (M model : models) {
+                long id = model.getId();
+                if (count > 0 && id <= ids[count - 1]) {
+                    throw new IllegalStateException("Записи снимка должны идти по возрастанию id");
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2 + 1);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                record.reset();
+                codec.encode(model, recordOut);
+                if ((long) out.size() + record.size() > maxSize) {
+                    throw tooLarge(path, maxSize);
+                }
+                ids[count] = id;
+                offsets[count] = out.size();
+                scores[count] = codec.score(model);
+                record.writeTo(out);
+                count++;
+            }
+            offsets[count] = out.size();
+            long indexSize = (3L * count + 1) * Long.BYTES;
+            if (offsets[count] + Long.BYTES + indexSize + TRAILER_SIZE > maxSize) {
+                throw tooLarge(path, maxSize);
+            }
+            while (out.size() % Long.BYTES != 0) {
+                out.writeByte(0);
+            }
+            long indexOffset = out.size();
+            CRC32 checksum = new CRC32();
+            DataOutputStream index = new DataOutputStream(new CheckedOutputStream(out, checksum));
+            for (int i = 0; i < count; i++) {
+                index.writeLong(ids[i]);
+            }
+            for (int i = 0; i <= count; i++) {
+                index.writeLong(offsets[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                index.writeLong(scores[i]);
+            }
+            out.writeLong(indexOffset);
+            out.writeLong(count);
+            out.writeInt((int) checksum.getValue());
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+        return count;
+    }
+
+    private static IOException tooLarge(Path path, long maxSize) {
+        return new IOException("Снимок " + path + " превысил бы " + maxSize + " байт и не может быть записан");
+    }
+
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все платформы позволяют открыть каталог как канал — переименование всё равно уже выполнено
+        }
+    }
+}
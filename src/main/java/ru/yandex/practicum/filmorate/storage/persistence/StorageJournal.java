@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.AbstractModel;
+
+/**
+ * Точка расширения in-memory хранилища для журналирования изменений.
+ * Хранилище выполняет изменение внутри {@link #mutate}, пишет запись через {@link #logSave}/{@link #logDelete}
+ * (или {@link #logElement} для одного элемента множества сущности) в той же критической секции,
+ * что и обновление карты, а подтверждения ждёт через {@link #awaitDurable} уже после выхода из неё.
+ */
+public interface StorageJournal<M extends AbstractModel> {
+    StorageJournal<AbstractModel> NONE = new StorageJournal<>() {
+        @Override
+        public void mutate(Runnable mutation) {
+            mutation.run();
+        }
+
+        @Override
+        public long logSave(AbstractModel model) {
+            return 0;
+        }
+
+        @Override
+        public long logDelete(long id) {
+            return 0;
+        }
+
+        @Override
+        public long logElement(long id, long element, boolean add) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long ticket) {
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    static <M extends AbstractModel> StorageJournal<M> none() {
+        return (StorageJournal<M>) (StorageJournal<?>) NONE;
+    }
+
+    void mutate(Runnable mutation);
+
+    long logSave(M model);
+
+    long logDelete(long id);
+
+    long logElement(long id, long element, boolean add);
+
+    void awaitDurable(long ticket);
+}
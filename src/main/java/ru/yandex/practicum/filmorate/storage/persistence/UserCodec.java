@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.HashKeyIndex;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static ru.yandex.practicum.filmorate.storage.persistence.BinaryFormat.*;
+
+public class UserCodec implements EntityCodec<User> {
+
+    @Override
+    public void encode(User user, DataOutput out) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+    }
+
+    @Override
+    public User decode(ByteBuffer in) {
+        User user = new User();
+        user.setId(in.getLong());
+        user.setEmail(readString(in));
+        user.setLogin(readString(in));
+        user.setName(readString(in));
+        user.setBirthday(readDate(in));
+        return user;
+    }
+
+    /**
+     * Хеши логина и email: по ним индексы уникальности восстанавливаются без декодирования записей.
+     */
+    @Override
+    public long score(User user) {
+        return (long) HashKeyIndex.hash(user.getLogin()) << 32 | HashKeyIndex.hash(user.getEmail()) & 0xFFFF_FFFFL;
+    }
+
+    public static int loginHash(long score) {
+        return (int) (score >>> 32);
+    }
+
+    public static int emailHash(long score) {
+        return (int) score;
+    }
+}
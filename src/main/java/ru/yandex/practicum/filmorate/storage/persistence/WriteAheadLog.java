@@ -0,0 +1,338 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал упреждающей записи: последовательность сегментов {@code wal-<номер>.log} из кадров
+ * [длина][тип][данные][CRC32]. Запись групповая: потоки-писатели только дописывают кадр в буфер,
+ * а поток-сбрасыватель отдаёт накопленное одним {@link FileChannel#write} и, по {@link FsyncPolicy},
+ * одним {@link FileChannel#force}, после чего будит ожидающих подтверждения.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition progress = lock.newCondition();
+    private final CRC32 checksum = new CRC32();
+    private final Thread flusher;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private FileChannel channel;
+    private long segment;
+    private long appended;
+    private long written;
+    private long synced;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+
+    public interface RecordHandler {
+        void accept(byte type, ByteBuffer payload);
+    }
+
+    private WriteAheadLog(Path directory, long segment, FsyncPolicy fsyncPolicy, Duration fsyncInterval)
+            throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.channel = openSegment(segment);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher-" + directory.getFileName());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Открывает журнал на новом сегменте, следующем за всеми существующими: старые сегменты
+     * не дописываются, поэтому оборванный хвост после падения остаётся только в конце своего сегмента.
+     */
+    public static WriteAheadLog open(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval)
+            throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments(directory);
+        long next = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        return new WriteAheadLog(directory, next, fsyncPolicy, fsyncInterval);
+    }
+
+    /**
+     * Проигрывает кадры всех сегментов начиная с {@code fromSegment}. Чтение сегмента прекращается
+     * на первом неполном кадре или кадре с неверной контрольной суммой.
+     */
+    public static long replay(Path directory, long fromSegment, RecordHandler handler) throws IOException {
+        long records = 0;
+        CRC32 checksum = new CRC32();
+        for (long number : listSegments(directory)) {
+            if (number < fromSegment) {
+                continue;
+            }
+            Path path = segmentPath(directory, number);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Сегмент журнала слишком велик: " + path);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= FRAME_OVERHEAD) {
+                    int start = buffer.position();
+                    int length = buffer.getInt();
+                    if (length < 0 || buffer.remaining() < length + 1 + Integer.BYTES) {
+                        buffer.position(start);
+                        break;
+                    }
+                    ByteBuffer frame = buffer.slice(start + Integer.BYTES, length + 1);
+                    checksum.reset();
+                    checksum.update(frame.duplicate());
+                    buffer.position(start + Integer.BYTES + length + 1);
+                    if (buffer.getInt() != (int) checksum.getValue()) {
+                        buffer.position(start);
+                        break;
+                    }
+                    handler.accept(frame.get(), frame.slice());
+                    records++;
+                }
+                if (buffer.hasRemaining()) {
+                    log.warn("Сегмент {} обрывается на позиции {}, хвост из {} байт пропущен",
+                            path, buffer.position(), buffer.remaining());
+                }
+            }
+        }
+        return records;
+    }
+
+    public long append(byte type, byte[] payload) {
+        lock.lock();
+        try {
+            checkUsable();
+            ensureCapacity(FRAME_OVERHEAD + payload.length);
+            checksum.reset();
+            checksum.update(type);
+            checksum.update(payload);
+            pending.putInt(payload.length).put(type).put(payload).putInt((int) checksum.getValue());
+            hasPending.signal();
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * При {@link FsyncPolicy#ALWAYS} блокирует поток, пока запись с номером {@code ticket} не окажется на диске,
+     * при остальных политиках только проверяет, что журнал исправен.
+     */
+    public void awaitDurable(long ticket) {
+        lock.lock();
+        try {
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                while (synced < ticket && failure == null && !closed) {
+                    progress.await();
+                }
+            }
+            checkUsable();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Ожидание записи журнала прервано"));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Дожидается сброса уже принятых записей и переключает журнал на новый сегмент. Ждёт и сброса,
+     * начатого без новых записей (только {@code force} по интервалу), чтобы не закрыть канал под ним.
+     *
+     * @return номер нового сегмента — с него начнётся проигрывание для снимка, снятого после ротации
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            while ((written < appended || flushing) && failure == null) {
+                progress.awaitUninterruptibly();
+            }
+            checkUsable();
+            channel.force(false);
+            channel.close();
+            synced = written;
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void deleteSegmentsBefore(long number) throws IOException {
+        for (long existing : listSegments(directory)) {
+            if (existing < number) {
+                Files.deleteIfExists(segmentPath(directory, existing));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            hasPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        ByteBuffer batch = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        long lastSync = System.nanoTime();
+        try {
+            while (true) {
+                FileChannel target;
+                long upTo;
+                lock.lock();
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        if (fsyncPolicy == FsyncPolicy.INTERVAL && synced < written) {
+                            long remaining = fsyncIntervalNanos - (System.nanoTime() - lastSync);
+                            if (remaining <= 0) {
+                                break;
+                            }
+                            hasPending.awaitNanos(remaining);
+                        } else {
+                            hasPending.await();
+                        }
+                    }
+                    if (pending.position() == 0 && closed) {
+                        return;
+                    }
+                    ByteBuffer full = pending;
+                    pending = batch;
+                    batch = full;
+                    target = channel;
+                    upTo = appended;
+                    flushing = true;
+                } finally {
+                    lock.unlock();
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                batch.clear();
+                boolean sync = fsyncPolicy == FsyncPolicy.ALWAYS || fsyncPolicy == FsyncPolicy.INTERVAL
+                        && System.nanoTime() - lastSync >= fsyncIntervalNanos;
+                if (sync) {
+                    target.force(false);
+                    lastSync = System.nanoTime();
+                }
+                lock.lock();
+                try {
+                    written = upTo;
+                    if (sync) {
+                        synced = upTo;
+                    }
+                    flushing = false;
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ошибка записи журнала {}", directory, e);
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Поток записи журнала прерван"));
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Журнал недоступен для записи", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Журнал закрыт");
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (pending.remaining() >= required) {
+            return;
+        }
+        int capacity = pending.capacity();
+        while (capacity - pending.position() < required) {
+            capacity *= 2;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name, SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.util;
+
+import ru.yandex.practicum.filmorate.model.AbstractModel;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Ленивый обход хранилища страницами по возрастанию id: в памяти держится только текущая страница.
+ */
+public class KeysetIterator<M extends AbstractModel> implements Iterator<M> {
+    private final BiFunction<Long, Integer, List<M>> pageLoader;
+    private final int pageSize;
+    private Iterator<M> page = List.<M>of().iterator();
+    private long lastId;
+    private boolean exhausted;
+
+    public KeysetIterator(BiFunction<Long, Integer, List<M>> pageLoader, int pageSize) {
+        this.pageLoader = pageLoader;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!page.hasNext() && !exhausted) {
+            List<M> next = pageLoader.apply(lastId, pageSize);
+            exhausted = next.size() < pageSize;
+            page = next.iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public M next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        M model = page.next();
+        lastId = model.getId();
+        return model;
+    }
+}
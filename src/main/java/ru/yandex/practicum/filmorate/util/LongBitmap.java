@@ -0,0 +1,345 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Сжатое множество неотрицательных long в духе Roaring: значения делятся на блоки по старшим битам
+ * ({@code value >>> 16}), младшие 16 бит блока лежат либо отсортированным {@code char[]} (до 4096 значений),
+ * либо битовой картой {@code long[1024]}. Пересечения и разности считаются поблочно, для двух битовых карт —
+ * через {@link Long#bitCount}. Не потокобезопасно; {@link #plus} и {@link #minus} меняют карту копированием
+ * одного блока, чтобы опубликованную карту можно было читать без блокировок.
+ */
+public class LongBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private static final long[] NO_KEYS = new long[0];
+    private static final Object[] NO_CONTAINERS = new Object[0];
+    private static final int[] NO_CARDINALITIES = new int[0];
+
+    private long[] keys = NO_KEYS;
+    private Object[] containers = NO_CONTAINERS;
+    private int[] cardinalities = NO_CARDINALITIES;
+    private int size;
+    private long cardinality;
+
+    public boolean add(long value) {
+        long key = value >>> 16;
+        char low = (char) value;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key);
+        }
+        if (containers[index] instanceof char[] array) {
+            int cardinality = cardinalities[index];
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                long[] bitmap = toBitmap(array, cardinality);
+                bitmap[low >>> 6] |= 1L << low;
+                containers[index] = bitmap;
+            } else {
+                position = -position - 1;
+                if (cardinality == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+                    containers[index] = array;
+                }
+                System.arraycopy(array, position, array, position + 1, cardinality - position);
+                array[position] = low;
+            }
+        } else {
+            long[] bitmap = (long[]) containers[index];
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+        }
+        cardinalities[index]++;
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(keys, 0, size, value >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        int cardinality = cardinalities[index];
+        if (containers[index] instanceof char[] array) {
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+        } else {
+            long[] bitmap = (long[]) containers[index];
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            bitmap[low >>> 6] &= ~bit;
+            if (cardinality - 1 == ARRAY_LIMIT) {
+                containers[index] = toArray(bitmap, ARRAY_LIMIT);
+            }
+        }
+        cardinalities[index]--;
+        this.cardinality--;
+        if (cardinalities[index] == 0) {
+            removeContainer(index);
+        }
+        return true;
+    }
+
+    /**
+     * Копия с добавленным значением. Неизменённые блоки у копии и исходной карты общие, поэтому после
+     * {@link #plus} и {@link #minus} исходную карту можно только читать.
+     *
+     * @return эта же карта, если значение уже было
+     */
+    public LongBitmap plus(long value) {
+        if (contains(value)) {
+            return this;
+        }
+        LongBitmap copy = copyDetaching(value >>> 16);
+        copy.add(value);
+        return copy;
+    }
+
+    /**
+     * Копия без значения, см. {@link #plus}.
+     *
+     * @return эта же карта, если значения не было
+     */
+    public LongBitmap minus(long value) {
+        if (!contains(value)) {
+            return this;
+        }
+        LongBitmap copy = copyDetaching(value >>> 16);
+        copy.remove(value);
+        return copy;
+    }
+
+    public boolean contains(long value) {
+        int index = Arrays.binarySearch(keys, 0, size, value >>> 16);
+        return index >= 0 && containerContains(index, (char) value);
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @return размер пересечения с {@code other}
+     */
+    public long andCardinality(LongBitmap other) {
+        long common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                common += intersectionSize(containers[i], cardinalities[i], other.containers[j],
+                        other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * Обходит значения по возрастанию.
+     */
+    public void forEach(LongConsumer consumer) {
+        for (int index = 0; index < size; index++) {
+            forEachInContainer(index, consumer);
+        }
+    }
+
+    /**
+     * Обходит не больше {@code limit} значений, равномерно прореживая множество, если оно больше.
+     */
+    public void forEachSampled(int limit, LongConsumer consumer) {
+        if (cardinality <= limit) {
+            forEach(consumer);
+            return;
+        }
+        double step = (double) cardinality / limit;
+        long[] seen = new long[1];
+        double[] next = new double[1];
+        forEach(value -> {
+            if (seen[0]++ >= next[0]) {
+                next[0] += step;
+                consumer.accept(value);
+            }
+        });
+    }
+
+    /**
+     * Обходит по возрастанию значения, которых нет в {@code other}.
+     */
+    public void forEachAndNot(LongBitmap other, LongConsumer consumer) {
+        int j = 0;
+        for (int index = 0; index < size; index++) {
+            long key = keys[index];
+            while (j < other.size && other.keys[j] < key) {
+                j++;
+            }
+            if (j == other.size || other.keys[j] != key) {
+                forEachInContainer(index, consumer);
+                continue;
+            }
+            int otherIndex = j;
+            forEachInContainer(index, value -> {
+                if (!other.containerContains(otherIndex, (char) value)) {
+                    consumer.accept(value);
+                }
+            });
+        }
+    }
+
+    public long[] toLongArray() {
+        long[] values = new long[(int) cardinality];
+        int[] position = new int[1];
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    private boolean containerContains(int index, char low) {
+        if (containers[index] instanceof char[] array) {
+            return Arrays.binarySearch(array, 0, cardinalities[index], low) >= 0;
+        }
+        return (((long[]) containers[index])[low >>> 6] & (1L << low)) != 0;
+    }
+
+    private void forEachInContainer(int index, LongConsumer consumer) {
+        long high = keys[index] << 16;
+        if (containers[index] instanceof char[] array) {
+            for (int i = 0; i < cardinalities[index]; i++) {
+                consumer.accept(high | array[i]);
+            }
+            return;
+        }
+        long[] bitmap = (long[]) containers[index];
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long bits = bitmap[word];
+            while (bits != 0) {
+                consumer.accept(high | ((long) word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private static int intersectionSize(Object first, int firstCardinality, Object second, int secondCardinality) {
+        if (first instanceof long[] firstBitmap && second instanceof long[] secondBitmap) {
+            int common = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                common += Long.bitCount(firstBitmap[word] & secondBitmap[word]);
+            }
+            return common;
+        }
+        if (first instanceof char[] firstArray && second instanceof char[] secondArray) {
+            int common = 0;
+            int i = 0;
+            int j = 0;
+            while (i < firstCardinality && j < secondCardinality) {
+                if (firstArray[i] < secondArray[j]) {
+                    i++;
+                } else if (firstArray[i] > secondArray[j]) {
+                    j++;
+                } else {
+                    common++;
+                    i++;
+                    j++;
+                }
+            }
+            return common;
+        }
+        char[] array = first instanceof char[] firstArray ? firstArray : (char[]) second;
+        long[] bitmap = first instanceof long[] firstBitmap ? firstBitmap : (long[]) second;
+        int cardinality = first instanceof char[] ? firstCardinality : secondCardinality;
+        int common = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if ((bitmap[array[i] >>> 6] & (1L << array[i])) != 0) {
+                common++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * Копия, у которой собственный только блок {@code key}, остальные общие с этой картой.
+     */
+    private LongBitmap copyDetaching(long key) {
+        LongBitmap copy = new LongBitmap();
+        copy.keys = Arrays.copyOf(keys, size);
+        copy.containers = Arrays.copyOf(containers, size);
+        copy.cardinalities = Arrays.copyOf(cardinalities, size);
+        copy.size = size;
+        copy.cardinality = cardinality;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            copy.containers[index] = containers[index] instanceof char[] array ? array.clone()
+                    : ((long[]) containers[index]).clone();
+        }
+        return copy;
+    }
+
+    private void insertContainer(int index, long key) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new char[4];
+        cardinalities[index] = 0;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static long[] toBitmap(char[] array, int cardinality) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        return bitmap;
+    }
+
+    private static char[] toArray(long[] bitmap, int cardinality) {
+        char[] array = new char[cardinality];
+        int position = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long bits = bitmap[word];
+            while (bits != 0) {
+                array[position++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Потокобезопасное множество примитивных long на открытой адресации с линейным пробированием.
+ * Хранит значения в одном массиве long[] без упаковки, поэтому запись занимает 8-16 байт
+ * вместо ~50 у {@link java.util.HashSet}. Снаружи выглядит как обычный {@code Set<Long>}.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] table;
+    private int size;
+    private boolean containsEmpty;
+
+    public LongHashSet() {
+        table = new long[MIN_CAPACITY];
+    }
+
+    public LongHashSet(Collection<Long> values) {
+        this();
+        if (values instanceof LongHashSet other) {
+            synchronized (other) {
+                table = other.table.clone();
+                size = other.size;
+                containsEmpty = other.containsEmpty;
+            }
+        } else if (values != null) {
+            values.forEach(this::add);
+        }
+    }
+
+    public synchronized boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value);
+        if (table[slot] == value) {
+            return false;
+        }
+        table[slot] = value;
+        size++;
+        if (size > table.length * LOAD_FACTOR) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    public synchronized boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int slot = slot(value);
+        if (table[slot] != value) {
+            return false;
+        }
+        table[slot] = EMPTY;
+        size--;
+        shiftBack(slot);
+        return true;
+    }
+
+    public synchronized boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        return table[slot(value)] == value;
+    }
+
+    public synchronized long[] toLongArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsEmpty) {
+            values[i++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = new long[MIN_CAPACITY];
+        size = 0;
+        containsEmpty = false;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] values = toLongArray();
+        return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < values.length;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return values[position++];
+            }
+
+            @Override
+            public void remove() {
+                LongHashSet.this.remove(values[position - 1]);
+            }
+        };
+    }
+
+    private int slot(long value) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != EMPTY && table[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void shiftBack(int emptied) {
+        int mask = table.length - 1;
+        int hole = emptied;
+        int slot = (hole + 1) & mask;
+        while (table[slot] != EMPTY) {
+            int home = hash(table[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                table[slot] = EMPTY;
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        for (long value : old) {
+            if (value != EMPTY) {
+                table[slot(value)] = value;
+            }
+        }
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
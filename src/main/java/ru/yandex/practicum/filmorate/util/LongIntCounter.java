@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Счётчик вхождений примитивных long на открытой адресации: ключи и значения лежат в двух параллельных массивах
+ * без упаковки. Не потокобезопасен — при параллельном подсчёте у каждой задачи свой счётчик,
+ * а результаты сливаются через {@link #merge}.
+ */
+public class LongIntCounter {
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int emptyKeyCount;
+
+    public interface Entry {
+        void accept(long key, int count);
+    }
+
+    public LongIntCounter() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, int delta) {
+        if (key == EMPTY) {
+            if (emptyKeyCount == 0) {
+                size++;
+            }
+            emptyKeyCount += delta;
+            return;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            counts[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyCount;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    public void remove(long key) {
+        if (key == EMPTY) {
+            if (emptyKeyCount != 0) {
+                size--;
+                emptyKeyCount = 0;
+            }
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return;
+        }
+        keys[slot] = EMPTY;
+        size--;
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            long moved = keys[next];
+            int count = counts[next];
+            keys[next] = EMPTY;
+            int target = slot(moved);
+            keys[target] = moved;
+            counts[target] = count;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LongIntCounter merge(LongIntCounter other) {
+        other.forEach(this::add);
+        return this;
+    }
+
+    public void forEach(Entry consumer) {
+        if (emptyKeyCount != 0) {
+            consumer.accept(EMPTY, emptyKeyCount);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Операции над отсортированными по возрастанию массивами id.
+ */
+public final class SortedArrays {
+    private static final int GALLOP_RATIO = 16;
+
+    private SortedArrays() {
+    }
+
+    /**
+     * Пересечение без промежуточных коллекций. Идёт по меньшему массиву: при близких размерах — слиянием
+     * за O(n + m), а когда больший массив длиннее в {@value #GALLOP_RATIO} раз и более — галопирующим поиском
+     * в нём за O(n log(m / n)).
+     */
+    public static long[] intersect(long[] first, long[] second) {
+        long[] smaller = first.length <= second.length ? first : second;
+        long[] larger = smaller == first ? second : first;
+        if (larger.length >= (long) smaller.length * GALLOP_RATIO) {
+            return gallop(smaller, larger);
+        }
+        long[] common = new long[smaller.length];
+        int found = 0;
+        int i = 0;
+        int j = 0;
+        while (i < smaller.length && j < larger.length) {
+            if (smaller[i] < larger[j]) {
+                i++;
+            } else if (smaller[i] > larger[j]) {
+                j++;
+            } else {
+                common[found++] = smaller[i];
+                i++;
+                j++;
+            }
+        }
+        return found == common.length ? common : Arrays.copyOf(common, found);
+    }
+
+    /**
+     * Каждый id меньшего массива ищется в большем от позиции предыдущей находки: шаг удваивается,
+     * пока не перешагнёт искомое, затем бинарный поиск в последнем отрезке.
+     */
+    private static long[] gallop(long[] smaller, long[] larger) {
+        long[] common = new long[smaller.length];
+        int found = 0;
+        int from = 0;
+        for (long value : smaller) {
+            int step = 1;
+            int to = from;
+            while (to < larger.length && larger[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(larger, from, Math.min(to + 1, larger.length), value);
+            if (position >= 0) {
+                common[found++] = value;
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+            if (from == larger.length) {
+                break;
+            }
+        }
+        return found == common.length ? common : Arrays.copyOf(common, found);
+    }
+
+    public static List<Long> boxed(long[] values) {
+        return Arrays.stream(values).boxed().toList();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Отбор k лучших id по счёту на примитивной куче: наверху худший из отобранных, поэтому кандидат,
+ * который его не превосходит, отбрасывается за O(1). Больший счёт лучше, при равенстве — меньший id.
+ */
+public class TopK {
+    private final long[] ids;
+    private final long[] scores;
+    private int size;
+
+    public TopK(int capacity) {
+        ids = new long[capacity];
+        scores = new long[capacity];
+    }
+
+    public void offer(long id, long score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && worse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Забирает отобранные id от лучшего к худшему и очищает кучу.
+     */
+    public long[] drain() {
+        long[] ranked = new long[size];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = ids[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return ranked;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!worse(ids[position], scores[position], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int worst = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (worse(ids[child], scores[child], ids[worst], scores[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == position) {
+                return;
+            }
+            swap(position, worst);
+            position = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        long id = ids[first];
+        long score = scores[first];
+        ids[first] = ids[second];
+        scores[first] = scores[second];
+        ids[second] = id;
+        scores[second] = score;
+    }
+
+    private static boolean worse(long id, long score, long otherId, long otherScore) {
+        return score < otherScore || score == otherScore && id > otherId;
+    }
+}
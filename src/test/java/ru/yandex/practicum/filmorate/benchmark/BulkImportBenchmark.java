@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.ingest.BulkImportService;
+import ru.yandex.practicum.filmorate.ingest.ImportReport;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность массового импорта без HTTP: результат — записей в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BulkImportBenchmark {
+    private static final int USERS = 50_000;
+    private static final int FILMS = 50_000;
+    private static final int LIKES = 150_000;
+    private static final int FRIENDSHIPS = 50_000;
+    private static final int RECORDS = USERS + FILMS + LIKES + FRIENDSHIPS;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private byte[] body;
+    private BulkImportService importService;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < USERS; i++) {
+            builder.append("{\"type\":\"user\",\"user\":{\"login\":\"user").append(i)
+                    .append("\",\"email\":\"user").append(i).append("@yandex.ru\"}}\n");
+        }
+        for (int i = 0; i < FILMS; i++) {
+            builder.append("{\"type\":\"film\",\"film\":{\"name\":\"Фильм ").append(i)
+                    .append("\",\"releaseDate\":\"2000-01-01\",\"duration\":90}}\n");
+        }
+        for (int i = 0; i < LIKES; i++) {
+            builder.append("{\"type\":\"like\",\"filmId\":").append(random.nextInt(FILMS) + 1)
+                    .append(",\"userId\":").append(random.nextInt(USERS) + 1).append("}\n");
+        }
+        for (int i = 0; i < FRIENDSHIPS; i++) {
+            builder.append("{\"type\":\"friendship\",\"userId\":").append(random.nextInt(USERS) + 1)
+                    .append(",\"friendId\":").append(random.nextInt(USERS) + 1).append("}\n");
+        }
+        body = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        importService = new BulkImportService(objectMapper, new FilmService(filmStorage, new FilmValidator(),
+                        new RecommendationService(filmStorage, userStorage, 50, 1_000, 10_000, Duration.ofMinutes(10)),
+                        new TrendingService(filmStorage), new SearchService(filmStorage)),
+                new UserService(userStorage, friendshipStorage,
+                        new FriendSuggestionService(friendshipStorage, 1_000, 64, 10_000, Duration.ofMinutes(10)),
+                        new UserValidator()),
+                filmStorage, userStorage, new FilmValidator(), new UserValidator());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public ImportReport importNdjson() throws IOException {
+        return importService.importNdjson(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CommonFriendsBenchmark {
+    @Param({"10000", "100000"})
+    private int friends;
+
+    @Param({"0.1", "0.5"})
+    private double overlap;
+
+    /**
+     * Доля друзей второго пользователя от {@code friends}: 1 — равные степени, 0.001 — 10 или 100 против 10k/100k.
+     */
+    @Param({"1", "0.001"})
+    private double degreeRatio;
+
+    private InMemoryUserStorage storage;
+    private UserService service;
+    private long firstUserId;
+    private long secondUserId;
+    private Set<Long> firstUserFriends;
+    private Set<Long> secondUserFriends;
+
+    @Setup
+    public void setUp() {
+        storage = new InMemoryUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        service = new UserService(storage, friendshipStorage, new FriendSuggestionService(friendshipStorage, 1_000, 64,
+                10_000, Duration.ofMinutes(10)), new UserValidator());
+        firstUserId = newUser().getId();
+        secondUserId = newUser().getId();
+        firstUserFriends = new HashSet<>();
+        secondUserFriends = new HashSet<>();
+        int secondFriends = Math.max(1, (int) (friends * degreeRatio));
+        int common = (int) (secondFriends * overlap);
+        for (int i = 0; i < friends; i++) {
+            long friendId = newUser().getId();
+            service.makeFriendship(firstUserId, friendId);
+            firstUserFriends.add(friendId);
+            if (i < secondFriends) {
+                long otherId = i < common ? friendId : newUser().getId();
+                service.makeFriendship(secondUserId, otherId);
+                secondUserFriends.add(otherId);
+            }
+        }
+    }
+
+    @Benchmark
+    public Collection<User> legacyTwoPassIntersection() {
+        storage.findById(firstUserId).orElseThrow();
+        storage.findById(secondUserId).orElseThrow();
+        Set<User> commonFriends = new HashSet<>();
+        commonFriends.addAll(firstUserFriends.stream()
+                .filter(secondUserFriends::contains)
+                .filter(id -> storage.findById(id).isPresent())
+                .map(id -> storage.findById(id).get())
+                .toList());
+        commonFriends.addAll(secondUserFriends.stream()
+                .filter(firstUserFriends::contains)
+                .filter(id -> storage.findById(id).isPresent())
+                .map(id -> storage.findById(id).get())
+                .toList());
+        return commonFriends;
+    }
+
+    @Benchmark
+    public Collection<User> primitiveIntersection() {
+        return service.findCommonFriends(firstUserId, secondUserId);
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setLogin("user" + storage.size());
+        user.setEmail("user" + storage.size() + "@yandex.ru");
+        return storage.save(user);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.OffHeapFilmStorage;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сравнивает занятую кучу и паузы GC каталога на 1M фильмов в {@link InMemoryFilmStorage} и {@link OffHeapFilmStorage}.
+ * Каждый движок нужно запускать в отдельной JVM; на машинах с одним ядром JVM по умолчанию выбирает Serial GC,
+ * поэтому сборщик лучше указать явно:
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs="-Xmx4g -XX:+UseG1GC"
+ * -Dbenchmark.main=ru.yandex.practicum.filmorate.benchmark.FilmCatalogHeapBenchmark -Dbenchmark.args=heap|offheap
+ */
+public class FilmCatalogHeapBenchmark {
+    private static final int FILMS = 1_000_000;
+    private static final long WORKLOAD_MILLIS = 30_000;
+    private static final String[] WORDS = {"история", "любви", "путешествие", "через", "время", "и", "пространство",
+            "о", "дружбе", "войне", "семье", "большом", "городе", "маленького", "человека"};
+
+    private static final AtomicLong pauses = new AtomicLong();
+    private static final AtomicLong pauseMillis = new AtomicLong();
+    private static final AtomicLong maxPauseMillis = new AtomicLong();
+
+    public static void main(String[] args) {
+        String engine = args.length > 0 ? args[0] : "heap";
+        FilmStorage storage = engine.equals("offheap") ? new OffHeapFilmStorage() : new InMemoryFilmStorage();
+        listenToPauses();
+
+        Random random = new Random(42);
+        for (int i = 0; i < FILMS; i++) {
+            storage.save(film(i, random));
+        }
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed).sum();
+
+        pauses.set(0);
+        pauseMillis.set(0);
+        maxPauseMillis.set(0);
+        long operations = 0;
+        long deadline = System.currentTimeMillis() + WORKLOAD_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < 1_000; i++, operations++) {
+                Film film = storage.findById((long) random.nextInt(FILMS) + 1).orElseThrow();
+                if (i % 10 == 0) {
+                    film.addLike((long) random.nextInt(100_000));
+                    film.setDescription(description(random));
+                    storage.save(film);
+                }
+            }
+            storage.findMostPopular(10);
+        }
+
+        System.out.printf("%-8s %10s %10s %10s %8s %10s %10s%n",
+                "engine", "heap, MB", "direct, MB", "ops/s", "pauses", "total, ms", "max, ms");
+        System.out.printf("%-8s %10d %10d %10d %8d %10d %10d%n", engine, heap >> 20, direct >> 20,
+                operations * 1000 / WORKLOAD_MILLIS, pauses.get(), pauseMillis.get(), maxPauseMillis.get());
+    }
+
+    private static Film film(int number, Random random) {
+        Film film = new Film();
+        film.setName("Фильм " + number);
+        film.setDescription(description(random));
+        film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(27_000)));
+        film.setDuration(60 + random.nextInt(120));
+        return film;
+    }
+
+    private static String description(Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return builder.append(random.nextInt(1_000_000)).toString();
+    }
+
+    private static void listenToPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData());
+                if (info.getGcName().contains("Concurrent")) {
+                    return;
+                }
+                long duration = info.getGcInfo().getDuration();
+                pauses.incrementAndGet();
+                pauseMillis.addAndGet(duration);
+                maxPauseMillis.accumulateAndGet(duration, Math::max);
+            }, null, null);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации друзей для пользователя с большой степенью: наивный подсчёт в {@code HashMap<Long, Integer>}
+ * по всему второму кругу против ограниченного обхода с примитивным счётчиком, без кеша и с кешем.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FriendSuggestionBenchmark {
+    private static final int USERS = 200_000;
+    private static final int AVERAGE_DEGREE = 20;
+    private static final long POPULAR_USER = 1;
+
+    @Param({"1000", "10000"})
+    private int popularUserFriends;
+
+    private InMemoryFriendshipStorage storage;
+    private FriendSuggestionService uncached;
+    private FriendSuggestionService cached;
+
+    @Setup
+    public void setUp() {
+        storage = new InMemoryFriendshipStorage();
+        Random random = new Random(42);
+        for (long i = 0; i < (long) USERS * AVERAGE_DEGREE / 2; i++) {
+            storage.addFriend(2 + random.nextInt(USERS), 2 + random.nextInt(USERS));
+        }
+        for (int i = 0; i < popularUserFriends; i++) {
+            storage.addFriend(POPULAR_USER, 2 + random.nextInt(USERS));
+        }
+        storage.compact(() -> {
+        });
+        uncached = new FriendSuggestionService(storage, 1_000, 64, 10_000, Duration.ZERO);
+        cached = new FriendSuggestionService(storage, 1_000, 64, 10_000, Duration.ofMinutes(10));
+    }
+
+    @Benchmark
+    public List<Long> naiveBoxedCounting() {
+        long[] friends = storage.findFriendIds(POPULAR_USER);
+        Map<Long, Integer> mutualFriends = new HashMap<>();
+        for (long friendId : friends) {
+            for (long candidate : storage.findFriendIds(friendId)) {
+                mutualFriends.merge(candidate, 1, Integer::sum);
+            }
+        }
+        for (long friendId : friends) {
+            mutualFriends.remove(friendId);
+        }
+        mutualFriends.remove(POPULAR_USER);
+        return mutualFriends.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(FriendSuggestionService.MAX_COUNT)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Benchmark
+    public long[] boundedPrimitive() {
+        return uncached.suggest(POPULAR_USER, FriendSuggestionService.MAX_COUNT);
+    }
+
+    @Benchmark
+    public long[] cachedResult() {
+        return cached.suggest(POPULAR_USER, FriendSuggestionService.MAX_COUNT);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.graph.FriendshipGraph;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обход соседей: граф CSR против множеств друзей на каждом пользователе, как было раньше.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FriendshipGraphBenchmark {
+    private static final int LOOKUPS = 1_024;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50"})
+    private int degree;
+
+    private FriendshipGraph graph;
+    private FriendshipGraph graphWithDelta;
+    private Map<Long, Set<Long>> boxedSets;
+    private Map<Long, LongHashSet> primitiveSets;
+    private long[] lookups;
+
+    @Setup
+    public void setUp() {
+        graph = new FriendshipGraph();
+        graphWithDelta = new FriendshipGraph();
+        boxedSets = new HashMap<>();
+        primitiveSets = new HashMap<>();
+        Random random = new Random(42);
+        long edges = (long) users * degree / 2;
+        for (long i = 0; i < edges; i++) {
+            long user = 1 + random.nextInt(users);
+            long friend = 1 + random.nextInt(users);
+            graph.addFriend(user, friend);
+            graphWithDelta.addFriend(user, friend);
+            boxedSets.computeIfAbsent(user, key -> new HashSet<>()).add(friend);
+            boxedSets.computeIfAbsent(friend, key -> new HashSet<>()).add(user);
+            primitiveSets.computeIfAbsent(user, key -> new LongHashSet()).add(friend);
+            primitiveSets.computeIfAbsent(friend, key -> new LongHashSet()).add(user);
+        }
+        graph.compact(() -> {
+        });
+        graphWithDelta.compact(() -> {
+        });
+        for (int i = 0; i < users / 10; i++) {
+            graphWithDelta.addFriend(1 + random.nextInt(users), 1 + random.nextInt(users));
+        }
+        lookups = random.longs(LOOKUPS, 1, users + 1).toArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long boxedHashSet() {
+        long sum = 0;
+        for (long user : lookups) {
+            for (Long friend : boxedSets.getOrDefault(user, Set.of())) {
+                sum += friend;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long longHashSet() {
+        long sum = 0;
+        for (long user : lookups) {
+            LongHashSet friends = primitiveSets.get(user);
+            if (friends != null) {
+                for (long friend : friends.toLongArray()) {
+                    sum += friend;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long csr() {
+        return sumNeighbors(graph);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long csrWithDelta() {
+        return sumNeighbors(graphWithDelta);
+    }
+
+    private long sumNeighbors(FriendshipGraph graph) {
+        long sum = 0;
+        for (long user : lookups) {
+            for (long friend : graph.findFriendIds(user)) {
+                sum += friend;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.storage.graph.Csr;
+import ru.yandex.practicum.filmorate.storage.graph.FriendshipGraph;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Печатает, сколько байт кучи занимает одно ребро дружбы (в одну сторону) в графе CSR и во множествах на пользователях.
+ * Запуск: mvn -P benchmark test-compile exec:exec
+ * -Dbenchmark.main=ru.yandex.practicum.filmorate.benchmark.FriendshipGraphMemoryBenchmark -Dbenchmark.args=
+ */
+public class FriendshipGraphMemoryBenchmark {
+    private static final int USERS = 100_000;
+    private static final int[] DEGREES = {10, 50};
+
+    public static void main(String[] args) {
+        System.out.printf("%-24s %8s %12s %14s %10s%n", "storage", "degree", "edges", "bytes", "bytes/edge");
+        for (int degree : DEGREES) {
+            FriendshipGraph graph = new FriendshipGraph();
+            Map<Long, Set<Long>> boxedSets = new HashMap<>();
+            Map<Long, LongHashSet> primitiveSets = new HashMap<>();
+            Random random = new Random(42);
+            for (long i = 0; i < (long) USERS * degree / 2; i++) {
+                long user = 1 + random.nextInt(USERS);
+                long friend = 1 + random.nextInt(USERS);
+                graph.addFriend(user, friend);
+                boxedSets.computeIfAbsent(user, key -> new HashSet<>()).add(friend);
+                boxedSets.computeIfAbsent(friend, key -> new HashSet<>()).add(user);
+                primitiveSets.computeIfAbsent(user, key -> new LongHashSet()).add(friend);
+                primitiveSets.computeIfAbsent(friend, key -> new LongHashSet()).add(user);
+            }
+            Csr csr = graph.compact(() -> {
+            });
+            long edges = csr.edges();
+            report("HashSet<Long>", degree, edges, boxedSets);
+            report("LongHashSet", degree, edges, primitiveSets);
+            report("FriendshipGraph (CSR)", degree, edges, csr.offsets(), csr.targets());
+        }
+    }
+
+    private static void report(String name, int degree, long edges, Object... roots) {
+        long bytes = GraphLayout.parseInstance(roots).totalSize();
+        System.out.printf("%-24s %8d %12d %14d %10.1f%n", name, degree, edges, bytes, (double) bytes / edges);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class IdGenerationBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int prefilled;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < prefilled; i++) {
+            storage.save(newFilm());
+        }
+    }
+
+    @Benchmark
+    public Film insert() {
+        return storage.save(newFilm());
+    }
+
+    private static Film newFilm() {
+        Film film = new Film();
+        film.setName("Фильм");
+        return film;
+    }
+}
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.ingest.LikeIngestionService;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Всплеск лайков и отмен на несколько горячих фильмов, как на премьере: каждый запрос применяется сразу
+ * против приёма через {@link LikeIngestionService} с ожиданием, пока писатели применят весь всплеск.
+ * Чем меньше пул пользователей, тем больше повторов схлопывается до применения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LikeIngestionBenchmark {
+    private static final int BURST = 10_000;
+    private static final int FILMS = 1_000;
+    private static final int HOT_FILMS = 10;
+
+    @Param({"1000", "50000"})
+    private int users;
+
+    private FilmService filmService;
+    private UserService userService;
+    private LikeIngestionService ingestion;
+    private long[] filmIds;
+    private long[] userIds;
+    private boolean[] likes;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        filmService = new FilmService(filmStorage, new FilmValidator(),
+                new RecommendationService(filmStorage, userStorage, 50, 1_000, 10_000, Duration.ofMinutes(10)),
+                new TrendingService(filmStorage), new SearchService(filmStorage));
+        userService = new UserService(userStorage, friendshipStorage,
+                new FriendSuggestionService(friendshipStorage, 1_000, 64, 10_000, Duration.ofMinutes(10)),
+                new UserValidator());
+        List<User> newUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            user.setBirthday(LocalDate.of(1985, 10, 11));
+            newUsers.add(user);
+        }
+        userService.createAll(newUsers);
+        List<Film> newFilms = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            newFilms.add(film);
+        }
+        filmService.createAll(newFilms);
+        ingestion = new LikeIngestionService(filmService, userService, 4, 100_000, 1_000, Duration.ofMillis(100));
+        ingestion.start();
+
+        Random random = new Random(42);
+        filmIds = new long[BURST];
+        userIds = new long[BURST];
+        likes = new boolean[BURST];
+        for (int i = 0; i < BURST; i++) {
+            filmIds[i] = 1 + random.nextInt(HOT_FILMS);
+            userIds[i] = 1 + random.nextInt(users);
+            likes[i] = random.nextInt(4) != 0;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        ingestion.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void synchronous() {
+        for (int i = 0; i < BURST; i++) {
+            User user = userService.getById(userIds[i]).orElseThrow();
+            if (likes[i]) {
+                filmService.addLike(filmIds[i], user);
+            } else {
+                filmService.removeLike(filmIds[i], user);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void ingestion() {
+        for (int i = 0; i < BURST; i++) {
+            if (likes[i]) {
+                ingestion.like(filmIds[i], userIds[i]);
+            } else {
+                ingestion.unlike(filmIds[i], userIds[i]);
+            }
+        }
+        ingestion.flush();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Печатает, сколько байт кучи занимает один лайк в разных реализациях множества.
+ * Запуск: mvn -P benchmark test-compile exec:exec
+ * -Dbenchmark.main=ru.yandex.practicum.filmorate.benchmark.LikeSetMemoryBenchmark -Dbenchmark.args=
+ */
+public class LikeSetMemoryBenchmark {
+    private static final int[] SIZES = {1_000, 100_000, 500_000};
+
+    public static void main(String[] args) {
+        System.out.printf("%-24s %10s %14s %10s%n", "set", "likes", "bytes", "bytes/like");
+        for (int size : SIZES) {
+            report("HashSet", size, HashSet::new);
+            report("ConcurrentHashMap.keySet", size, ConcurrentHashMap::newKeySet);
+            report("LongHashSet", size, LongHashSet::new);
+        }
+    }
+
+    private static void report(String name, int size, Supplier<Set<Long>> factory) {
+        Set<Long> set = factory.get();
+        for (long userId = 1; userId <= size; userId++) {
+            set.add(userId * 7919);
+        }
+        long bytes = GraphLayout.parseInstance(set).totalSize();
+        System.out.printf("%-24s %10d %14d %10.1f%n", name, size, bytes, (double) bytes / size);
+    }
+}
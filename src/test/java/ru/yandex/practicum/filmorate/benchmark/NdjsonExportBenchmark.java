@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.export.NdjsonExporter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время полной выгрузки каталога: список целиком против потокового NDJSON.
+ * Для сравнения памяти запускать с -prof gc (alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class NdjsonExportBenchmark {
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private FilmService service;
+    private NdjsonExporter exporter;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        service = new FilmService(storage, new FilmValidator(),
+                new RecommendationService(storage, new InMemoryUserStorage(), 50, 1_000, 10_000,
+                        Duration.ofMinutes(10)),
+                new TrendingService(storage), new SearchService(storage));
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exporter = new NdjsonExporter(objectMapper, List.of());
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание фильма номер " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 5_000));
+            film.setDuration(90 + i % 60);
+            service.create(film);
+        }
+    }
+
+    @Benchmark
+    public long fullList() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, service.list());
+        return out.bytes;
+    }
+
+    @Benchmark
+    public long ndjsonStream() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exporter.export(service.iterateAll()).writeTo(out);
+        return out.bytes;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
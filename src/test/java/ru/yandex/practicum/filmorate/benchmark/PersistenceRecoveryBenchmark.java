@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.DurableJournal;
+import ru.yandex.practicum.filmorate.storage.persistence.FilmCodec;
+import ru.yandex.practicum.filmorate.storage.persistence.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время старта хранилища на 1M фильмов: из снимка или проигрыванием журнала, где каждый фильм
+ * записан при создании и при каждом лайке. {@code recover} — готовность к запросам (снимок открывается лениво),
+ * {@code recoverAndReadAll} — плюс декодирование всех записей обходом каталога.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class PersistenceRecoveryBenchmark {
+    private static final int FILMS = 1_000_000;
+    private static final int MAX_LIKES = 5;
+
+    @Param({"snapshot", "log"})
+    private String source;
+
+    private Path directory;
+    private DurableJournal<Film> recovered;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        directory = Files.createTempDirectory("filmorate-recovery");
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        Random random = new Random(42);
+        try (DurableJournal<Film> journal = DurableJournal.open(directory, new FilmCodec(), storage,
+                FsyncPolicy.NEVER, Duration.ofSeconds(1))) {
+            for (int i = 0; i < FILMS; i++) {
+                Film film = new Film();
+                film.setName("Фильм " + i);
+                film.setDescription("Описание фильма " + i);
+                film.setReleaseDate(LocalDate.of(2000, 1, 1));
+                film.setDuration(90);
+                storage.save(film);
+                for (int like = random.nextInt(MAX_LIKES + 1); like > 0; like--) {
+                    film.addLike(random.nextLong(1, 100_000));
+                    storage.save(film);
+                }
+            }
+            if (source.equals("snapshot")) {
+                journal.checkpoint();
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws IOException {
+        recovered.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        recovered = DurableJournal.open(directory, new FilmCodec(), storage, FsyncPolicy.NEVER,
+                Duration.ofSeconds(1));
+        return storage;
+    }
+
+    @Benchmark
+    public int recoverAndReadAll() throws IOException {
+        return recover().findAll().size();
+    }
+}
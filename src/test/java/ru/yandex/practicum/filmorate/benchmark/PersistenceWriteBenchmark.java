@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.DurableJournal;
+import ru.yandex.practicum.filmorate.storage.persistence.FilmCodec;
+import ru.yandex.practicum.filmorate.storage.persistence.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журналирования для записи: сохранение фильма без журнала и с журналом при разных политиках fsync.
+ * Несколько потоков показывают эффект группового коммита при {@code ALWAYS}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Threads(4)
+public class PersistenceWriteBenchmark {
+    private static final int FILMS = 100_000;
+
+    @Param({"off", "NEVER", "INTERVAL", "ALWAYS"})
+    private String fsync;
+
+    private Path directory;
+    private InMemoryFilmStorage storage;
+    private DurableJournal<Film> journal;
+    private Film[] films;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("filmorate-wal");
+        storage = new InMemoryFilmStorage();
+        films = new Film[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание фильма " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(90);
+            films[i] = storage.save(film);
+        }
+        if (!fsync.equals("off")) {
+            journal = DurableJournal.open(directory, new FilmCodec(), storage, FsyncPolicy.valueOf(fsync),
+                    Duration.ofMillis(50));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Film like() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Film film = films[random.nextInt(FILMS)];
+        film.addLike(random.nextLong(1, 1_000_000));
+        return storage.save(film);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PopularFilmsBenchmark {
+    private static final int COUNT = 10;
+    private static final int MAX_LIKES = 5;
+    private static final int FIRST_YEAR = 1970;
+    private static final int YEARS = 50;
+    private static final int YEAR = 2000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+    private FilmService service;
+
+    @Setup
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        service = new FilmService(storage, new FilmValidator(),
+                new RecommendationService(storage, new InMemoryUserStorage(), 50, 1_000, 10_000,
+                        Duration.ofMinutes(10)),
+                new TrendingService(storage), new SearchService(storage));
+        User[] users = new User[MAX_LIKES];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User();
+            users[i].setId((long) i + 1);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(FIRST_YEAR + i % YEARS, 1, 1));
+            Long id = service.create(film).getId();
+            for (int like = random.nextInt(MAX_LIKES + 1); like > 0; like--) {
+                service.addLike(id, users[like - 1]);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Film> streamSort() {
+        return storage.findAll().stream()
+                .sorted(Comparator.comparing((Film film) -> film.getLikes().size()).reversed())
+                .limit(COUNT).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Film> popularityIndex() {
+        return service.getMostPopularFilms(COUNT);
+    }
+
+    @Benchmark
+    public List<Film> streamFilterSortByYear() {
+        return storage.findAll().stream()
+                .filter(film -> film.getReleaseDate().getYear() == YEAR)
+                .sorted(Comparator.comparing((Film film) -> film.getLikes().size()).reversed())
+                .limit(COUNT).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Film> popularityIndexByYear() {
+        return service.getMostPopularFilms(COUNT, YEAR);
+    }
+}
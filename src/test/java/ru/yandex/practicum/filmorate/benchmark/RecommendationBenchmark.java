@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации фильмов на миллионе лайков с перекосом популярности: наивный подсчёт по {@code HashSet<Long>}
+ * через всех лайкнувших против {@link LikeIndex} на сжатых битовых картах. Режим выборки показывает p99;
+ * пользователь для запроса каждый раз новый, кеш ответов не участвует.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecommendationBenchmark {
+    private static final int USERS = 100_000;
+    private static final int FILMS = 20_000;
+    private static final int LIKES = 1_000_000;
+    private static final int NEIGHBORS = 50;
+    private static final int MAX_FAN_OUT = 1_000;
+
+    private final Map<Long, Set<Long>> filmsByUser = new HashMap<>();
+    private final Map<Long, Set<Long>> usersByFilm = new HashMap<>();
+    private LikeIndex index;
+    private long nextUser;
+
+    @Setup
+    public void setUp() {
+        index = new LikeIndex();
+        Random random = new Random(42);
+        for (int i = 0; i < LIKES; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            double skew = random.nextDouble();
+            long filmId = 1 + (long) (FILMS * skew * skew * skew);
+            index.add(filmId, userId);
+            filmsByUser.computeIfAbsent(userId, key -> new HashSet<>()).add(filmId);
+            usersByFilm.computeIfAbsent(filmId, key -> new HashSet<>()).add(userId);
+        }
+    }
+
+    @Benchmark
+    public List<Long> naiveHashSets() {
+        long userId = nextUser();
+        Set<Long> liked = filmsByUser.getOrDefault(userId, Set.of());
+        Map<Long, Integer> overlap = new HashMap<>();
+        for (Long filmId : liked) {
+            for (Long other : usersByFilm.get(filmId)) {
+                if (other != userId) {
+                    overlap.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+        Map<Long, Integer> weights = new HashMap<>();
+        overlap.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(NEIGHBORS)
+                .forEach(neighbor -> {
+                    for (Long filmId : filmsByUser.get(neighbor.getKey())) {
+                        if (!liked.contains(filmId)) {
+                            weights.merge(filmId, neighbor.getValue(), Integer::sum);
+                        }
+                    }
+                });
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(RecommendationService.MAX_COUNT)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Benchmark
+    public long[] bitmapIndex() {
+        return index.recommend(nextUser(), NEIGHBORS, MAX_FAN_OUT, RecommendationService.MAX_COUNT);
+    }
+
+    private long nextUser() {
+        nextUser = nextUser % USERS + 1;
+        return nextUser;
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.index.SearchIndex;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по названию и описанию в каталоге из миллиона фильмов: проход по всем фильмам с {@code contains}
+ * против {@link SearchIndex}. Запросы — слово средней частоты, префикс из трёх букв и пара слов.
+ * При подготовке печатается, сколько кучи занимает индекс без самих текстов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class SearchBenchmark {
+    private static final int FILMS = 1_000_000;
+    private static final int VOCABULARY = 100_000;
+    private static final int QUERIES = 1_024;
+    private static final int COUNT = 10;
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ле", "ту", "на", "зо", "бе", "ри", "ша", "ён",
+            "ва", "ко", "ли", "ма", "то", "ne", "ro", "ma", "ti", "ka", "lo", "su", "de"};
+
+    @Param({"word", "prefix", "twoWords"})
+    private String queryType;
+
+    private final String[] names = new String[FILMS];
+    private final String[] descriptions = new String[FILMS];
+    private final String[] queries = new String[QUERIES];
+    private SearchIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            names[i] = capitalize(text(words, random, 1 + random.nextInt(3)));
+            descriptions[i] = text(words, random, 8 + random.nextInt(12));
+        }
+        long heapBefore = usedHeap();
+        index = new SearchIndex();
+        for (int i = 0; i < FILMS; i++) {
+            index.put(i + 1, names[i], descriptions[i], random.nextInt(100));
+        }
+        long indexBytes = usedHeap() - heapBefore;
+        System.out.printf("%nИндекс: %d фильмов, %d МБ кучи, %.0f байт на фильм%n",
+                FILMS, indexBytes >> 20, (double) indexBytes / FILMS);
+        for (int i = 0; i < QUERIES; i++) {
+            String word = words[1_000 + random.nextInt(10_000)];
+            queries[i] = switch (queryType) {
+                case "word" -> word;
+                case "prefix" -> word.substring(0, 3);
+                default -> word + " " + words[random.nextInt(1_000)];
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Integer> scanContains() {
+        String[] terms = query().toLowerCase(Locale.ROOT).split(" ");
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            String name = names[i].toLowerCase(Locale.ROOT);
+            boolean matches = true;
+            for (String term : terms) {
+                if (!name.contains(term) && !descriptions[i].contains(term)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                found.add(i + 1);
+            }
+        }
+        return found.subList(0, Math.min(COUNT, found.size()));
+    }
+
+    @Benchmark
+    public long[] invertedIndex() {
+        return index.search(query(), COUNT);
+    }
+
+    private String query() {
+        next = (next + 1) & (QUERIES - 1);
+        return queries[next];
+    }
+
+    private static String text(String[] words, Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            double skew = random.nextDouble();
+            text.append(i == 0 ? "" : " ").append(words[(int) (VOCABULARY * skew * skew * skew)]);
+        }
+        return text.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
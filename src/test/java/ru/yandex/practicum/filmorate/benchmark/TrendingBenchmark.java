@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.index.SlidingWindowCounter;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Популярные за сутки при миллионе лайков за неделю: подсчёт по журналу событий с отметками времени
+ * против кольца корзин с инкрементальным рейтингом, а также стоимость записи одного лайка в кольцо.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class TrendingBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int LIKES = 1_000_000;
+    private static final long WEEK = Duration.ofDays(7).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long NOW = 1_000 * WEEK;
+
+    private final long[] eventFilms = new long[LIKES];
+    private final long[] eventTimes = new long[LIKES];
+    private final Random random = new Random(42);
+    private SlidingWindowCounter counter;
+
+    @Setup
+    public void setUp() {
+        counter = new SlidingWindowCounter(Duration.ofDays(1), 96);
+        for (int i = 0; i < LIKES; i++) {
+            double skew = random.nextDouble();
+            eventFilms[i] = 1 + (long) (FILMS * skew * skew);
+            eventTimes[i] = NOW - WEEK + WEEK * i / LIKES;
+            counter.add(eventFilms[i], 1, eventTimes[i]);
+        }
+    }
+
+    @Benchmark
+    public List<Long> scanEventLog() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < LIKES; i++) {
+            if (eventTimes[i] > NOW - DAY) {
+                counts.merge(eventFilms[i], 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Long> slidingWindowTop() {
+        return counter.top(10, NOW);
+    }
+
+    @Benchmark
+    public void slidingWindowRecord() {
+        counter.add(1 + random.nextInt(FILMS), 1, NOW);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.export.NdjsonExporter;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UserJsonConfigTest {
+    private CountingFriendshipStorage friendships;
+    private UserJsonConfig config;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        friendships = new CountingFriendshipStorage();
+        friendships.addFriend(1, 3);
+        friendships.addFriend(1, 2);
+        config = new UserJsonConfig();
+        mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .registerModule(config.userFriendsModule(friendships))
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    @DisplayName("JSON пользователя должен содержать id друзей из графа дружбы")
+    void shouldWriteFriendsFromGraph() throws Exception {
+        User user = user(1);
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(user));
+        assertEquals("user1", json.get("login").asText());
+        assertEquals("1985-10-11", json.get("birthday").asText());
+        assertEquals("[2,3]", json.get("friends").toString());
+
+        user.setId(null);
+        assertEquals("[]", mapper.readTree(mapper.writeValueAsString(user)).get("friends").toString());
+    }
+
+    @Test
+    @DisplayName("Друзья для списка пользователей должны загружаться пачками, а не по одному")
+    void shouldLoadFriendsOfListInBatches() throws Exception {
+        List<User> users = LongStream.rangeClosed(1, 2_500).mapToObj(UserJsonConfigTest::user).toList();
+        JsonNode json = mapper.readerFor(JsonNode.class)
+                .readValue(mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, User.class))
+                        .writeValueAsString(users));
+        assertEquals(2_500, json.size());
+        assertEquals("[2,3]", json.get(0).get("friends").toString());
+        assertEquals("[1]", json.get(2).get("friends").toString());
+        assertEquals("[]", json.get(2_499).get("friends").toString());
+        assertEquals(3, friendships.batchCalls);
+        assertEquals(0, friendships.singleCalls);
+    }
+
+    @Test
+    @DisplayName("Выгрузка пользователей должна загружать друзей пачками")
+    void shouldLoadFriendsOfExportInBatches() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(mapper, List.of(config.userFriendsPreloader(friendships)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(LongStream.rangeClosed(1, 1_500).mapToObj(UserJsonConfigTest::user).iterator())
+                .writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1_500, lines.length);
+        assertEquals("[1]", mapper.readTree(lines[1]).get("friends").toString());
+        assertEquals(2, friendships.batchCalls);
+        assertEquals(0, friendships.singleCalls);
+    }
+
+    @Test
+    @DisplayName("Список пользователей потоком должен быть JSON-массивом с друзьями, загруженными пачками")
+    void shouldStreamUsersAsJsonArray() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(mapper, List.of(config.userFriendsPreloader(friendships)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.exportArray(LongStream.rangeClosed(1, 1_500).mapToObj(UserJsonConfigTest::user).iterator())
+                .writeTo(out);
+        JsonNode json = mapper.readTree(out.toByteArray());
+        assertEquals(1_500, json.size());
+        assertEquals("[2,3]", json.get(0).get("friends").toString());
+        assertEquals("user1500", json.get(1_499).get("login").asText());
+        assertEquals(2, friendships.batchCalls);
+        assertEquals(0, friendships.singleCalls);
+
+        out.reset();
+        exporter.exportArray(List.of().iterator()).writeTo(out);
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin("user" + id);
+        user.setEmail("user" + id + "@gmail.com");
+        user.setBirthday(LocalDate.of(1985, 10, 11));
+        return user;
+    }
+
+    private static final class CountingFriendshipStorage extends InMemoryFriendshipStorage {
+        private int singleCalls;
+        private int batchCalls;
+
+        @Override
+        public long[] findFriendIds(long userId) {
+            singleCalls++;
+            return super.findFriendIds(userId);
+        }
+
+        @Override
+        public Map<Long, long[]> findFriendIds(Collection<Long> userIds) {
+            batchCalls++;
+            return super.findFriendIds(userIds);
+        }
+    }
+}
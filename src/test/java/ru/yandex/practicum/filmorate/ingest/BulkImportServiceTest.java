@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BulkImportServiceTest {
+    private FilmService filmService;
+    private UserService userService;
+    private BulkImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        filmService = new FilmService(filmStorage, new FilmValidator(),
+                new RecommendationService(filmStorage, userStorage, 50, 1_000, 10_000, Duration.ofMinutes(10)),
+                new TrendingService(filmStorage), new SearchService(filmStorage));
+        userService = new UserService(userStorage, friendshipStorage, new FriendSuggestionService(friendshipStorage,
+                1_000, 64, 10_000, Duration.ofMinutes(10)), new UserValidator());
+        importService = new BulkImportService(new ObjectMapper().registerModule(new JavaTimeModule()),
+                filmService, userService, filmStorage, userStorage, new FilmValidator(), new UserValidator());
+    }
+
+    @Test
+    @DisplayName("Импорт должен загрузить корректные строки и сообщить номера ошибочных")
+    void shouldImportValidLinesAndReportErrors() throws Exception {
+        String body = String.join("\n",
+                "{\"type\":\"user\",\"user\":{\"login\":\"evgen\",\"email\":\"evgen@gmail.com\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"eugen\",\"email\":\"eugen@yandex.ru\"}}",
+                "{\"type\":\"film\",\"film\":{\"name\":\"Вначале\",\"releaseDate\":\"1998-01-04\"}}",
+                "",
+                "{\"type\":\"film\",\"film\":{\"name\":\"\"}}",
+                "{\"type\":\"like\",\"filmId\":1,\"userId\":2}",
+                "{\"type\":\"like\",\"filmId\":7,\"userId\":2}",
+                "{\"type\":\"friendship\",\"userId\":1,\"friendId\":2}",
+                "не json",
+                "{\"type\":\"user\",\"user\":{\"login\":\"evgen\",\"email\":\"evgen@yandex.ru\"}}");
+        ImportReport report = importService.importNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(9, report.getProcessed());
+        assertEquals(5, report.getImported());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(5L, 9L, 10L, 7L), report.getErrors().stream().map(ImportReport.LineError::line).toList());
+        assertEquals(2, userService.list().size());
+        assertEquals("evgen", userService.getById(1L).orElseThrow().getName());
+        assertEquals(Set.of(2L), filmService.getById(1L).orElseThrow().getLikes());
+        assertEquals(List.of(1L), userService.getFriends(2L).stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Строка, отклонённая из-за email, не должна занимать login для следующих строк")
+    void shouldNotReserveLoginOfRejectedUser() throws Exception {
+        String body = String.join("\n",
+                "{\"type\":\"user\",\"user\":{\"login\":\"evgen\",\"email\":\"evgen@yandex.ru\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"eugen\",\"email\":\"evgen@yandex.ru\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"eugen\",\"email\":\"eugen@yandex.ru\"}}");
+        ImportReport report = importService.importNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2L), report.getErrors().stream().map(ImportReport.LineError::line).toList());
+        assertEquals("eugen@yandex.ru", userService.getByLogin("eugen").orElseThrow().getEmail());
+    }
+
+    @Test
+    @DisplayName("Импорт лайков должен добавлять их к уже поставленным, а не перезаписывать фильм")
+    void shouldAddImportedLikesToExistingOnes() throws Exception {
+        String setup = String.join("\n",
+                "{\"type\":\"user\",\"user\":{\"login\":\"evgen\",\"email\":\"evgen@gmail.com\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"eugen\",\"email\":\"eugen@yandex.ru\"}}",
+                "{\"type\":\"film\",\"film\":{\"name\":\"Вначале\",\"releaseDate\":\"1998-01-04\"}}");
+        importService.importNdjson(new ByteArrayInputStream(setup.getBytes(StandardCharsets.UTF_8)));
+        filmService.addLike(1L, userService.getById(1L).orElseThrow());
+
+        String likes = String.join("\n",
+                "{\"type\":\"like\",\"filmId\":1,\"userId\":2}",
+                "{\"type\":\"like\",\"filmId\":1,\"userId\":1}");
+        ImportReport report = importService.importNdjson(
+                new ByteArrayInputStream(likes.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, report.getImported());
+        assertEquals(Set.of(1L, 2L), filmService.getById(1L).orElseThrow().getLikes());
+        assertEquals(2, filmService.getById(1L).orElseThrow().getLikeCount());
+    }
+
+    @Test
+    @DisplayName("Импорт дружбы должен сбрасывать закешированные рекомендации друзей")
+    void shouldInvalidateSuggestionsOnImportedFriendship() throws Exception {
+        String users = String.join("\n",
+                "{\"type\":\"user\",\"user\":{\"login\":\"evgen\",\"email\":\"evgen@gmail.com\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"eugen\",\"email\":\"eugen@yandex.ru\"}}",
+                "{\"type\":\"user\",\"user\":{\"login\":\"ivan\",\"email\":\"ivan@yandex.ru\"}}");
+        importService.importNdjson(new ByteArrayInputStream(users.getBytes(StandardCharsets.UTF_8)));
+        userService.makeFriendship(1L, 2L);
+        assertEquals(List.of(), userService.getFriendSuggestions(1L, 10));
+
+        String friendship = "{\"type\":\"friendship\",\"userId\":2,\"friendId\":3}";
+        importService.importNdjson(new ByteArrayInputStream(friendship.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of(3L), userService.getFriendSuggestions(1L, 10).stream().map(User::getId).toList());
+        assertEquals(List.of(1L), userService.getFriendSuggestions(3L, 10).stream().map(User::getId).toList());
+    }
+}
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.ingest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validator.FilmValidator;
+import ru.yandex.practicum.filmorate.validator.UserValidator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LikeIngestionServiceTest {
+    private FilmService filmService;
+    private CountingUserStorage userStorage;
+    private LikeIngestionService ingestion;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestion.stop();
+    }
+
+    @Test
+    @DisplayName("Повторы одной пары до применения должны схлопываться в последнее намерение")
+    void shouldCoalescePendingRepeats() {
+        start(100);
+        ingestion.like(1, 1);
+        ingestion.unlike(1, 1);
+        ingestion.like(1, 1);
+        ingestion.like(1, 2);
+        ingestion.unlike(2, 1);
+        ingestion.flush();
+
+        assertEquals(Set.of(1L, 2L), filmService.getById(1L).orElseThrow().getLikes());
+        assertEquals(2, filmService.getById(1L).orElseThrow().getLikeCount());
+        assertEquals(Set.of(), filmService.getById(2L).orElseThrow().getLikes());
+    }
+
+    @Test
+    @DisplayName("Переполненная очередь должна отклонять новые пары, но принимать повторы")
+    void shouldRejectNewPairsWhenQueueIsFull() {
+        start(2);
+        ingestion.like(2, 1);
+        ingestion.like(2, 2);
+
+        assertThrows(OverloadedException.class, () -> ingestion.like(2, 3));
+        ingestion.like(2, 1);
+        ingestion.flush();
+        assertEquals(Set.of(1L, 2L), filmService.getById(2L).orElseThrow().getLikes());
+    }
+
+    @Test
+    @DisplayName("Лайки несуществующим фильмам и от несуществующих пользователей должны пропускаться")
+    void shouldDropLikesOfMissingFilmsAndUsers() {
+        start(100);
+        ingestion.like(99, 1);
+        ingestion.like(1, 99);
+        ingestion.like(1, 3);
+        ingestion.flush();
+
+        assertEquals(Set.of(3L), filmService.getById(1L).orElseThrow().getLikes());
+    }
+
+    @Test
+    @DisplayName("Писатель должен читать пользователей пачки одним запросом")
+    void shouldLoadUsersOncePerBatch() {
+        start(100);
+        userStorage.singleCalls = 0;
+        userStorage.batchCalls = 0;
+        ingestion.like(1, 1);
+        ingestion.like(1, 2);
+        ingestion.like(3, 3);
+        ingestion.unlike(3, 1);
+        ingestion.flush();
+
+        assertEquals(0, userStorage.singleCalls);
+        assertEquals(1, userStorage.batchCalls);
+        assertEquals(Set.of(1L, 2L), filmService.getById(1L).orElseThrow().getLikes());
+        assertEquals(Set.of(3L), filmService.getById(3L).orElseThrow().getLikes());
+    }
+
+    @Test
+    @DisplayName("Сбой пакетной записи не должен терять пары, которые применяются поодиночке")
+    void shouldRetryFailedBatchPairByPair() {
+        start(100, new FailingFilmStorage(2, 2));
+        filmService.addLike(2L, userStorage.findById(3L).orElseThrow());
+        ingestion.like(2, 1);
+        ingestion.like(2, 2);
+        ingestion.unlike(2, 3);
+        ingestion.like(1, 2);
+        ingestion.flush();
+
+        assertEquals(Set.of(1L), filmService.getById(2L).orElseThrow().getLikes());
+        assertEquals(1, filmService.getById(2L).orElseThrow().getLikeCount());
+        assertEquals(Set.of(2L), filmService.getById(1L).orElseThrow().getLikes());
+    }
+
+    private void start(int queueCapacity) {
+        start(queueCapacity, new InMemoryFilmStorage());
+    }
+
+    private void start(int queueCapacity, InMemoryFilmStorage filmStorage) {
+        userStorage = new CountingUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        filmService = new FilmService(filmStorage, new FilmValidator(),
+                new RecommendationService(filmStorage, userStorage, 50, 1_000, 10_000, Duration.ofMinutes(10)),
+                new TrendingService(filmStorage), new SearchService(filmStorage));
+        UserService userService = new UserService(userStorage, friendshipStorage,
+                new FriendSuggestionService(friendshipStorage, 1_000, 64, 10_000, Duration.ofMinutes(10)),
+                new UserValidator());
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            user.setBirthday(LocalDate.of(1985, 10, 11));
+            userService.create(user);
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание");
+            film.setDuration(94);
+            film.setReleaseDate(LocalDate.of(1998, 1, 4));
+            filmService.create(film);
+        }
+        ingestion = new LikeIngestionService(filmService, userService, 2, queueCapacity, 1_000,
+                Duration.ofMinutes(1));
+        ingestion.start();
+    }
+
+    /**
+     * Хранилище, в котором одна пара не записывается ни пачкой, ни поодиночке.
+     */
+    private static final class FailingFilmStorage extends InMemoryFilmStorage {
+        private final long filmId;
+        private final long userId;
+
+        private FailingFilmStorage(long filmId, long userId) {
+            this.filmId = filmId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean addLike(long filmId, long userId) {
+            failOn(filmId, userId);
+            return super.addLike(filmId, userId);
+        }
+
+        @Override
+        public Map<Long, long[]> addLikes(Map<Long, long[]> likes) {
+            likes.forEach((id, userIds) -> Arrays.stream(userIds).forEach(user -> failOn(id, user)));
+            return super.addLikes(likes);
+        }
+
+        private void failOn(long filmId, long userId) {
+            if (filmId == this.filmId && userId == this.userId) {
+                throw new IllegalStateException("Нарушено ограничение для лайка " + filmId + "-" + userId);
+            }
+        }
+    }
+
+    private static final class CountingUserStorage extends InMemoryUserStorage {
+        private int singleCalls;
+        private int batchCalls;
+
+        @Override
+        public Optional<User> findById(Long id) {
+            singleCalls++;
+            return super.findById(id);
+        }
+
+        @Override
+        public List<User> findAllById(Collection<Long> ids) {
+            batchCalls++;
+            return super.findAllById(ids);
+        }
+    }
+}
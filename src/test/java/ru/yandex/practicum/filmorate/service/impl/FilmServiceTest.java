@@ -7,22 +7,44 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.SearchService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
 import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.validator.FilmValidator;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class FilmServiceTest {
     private FilmService service;
+    private RecommendationService recommendationService;
+    private TrendingService trendingService;
+    private SearchService searchService;
+    private InMemoryUserStorage userStorage;
     private Film testFilmForCreate;
     private Film testFilmForUpdate;
 
     @BeforeEach
     void setUp() {
-        service = new FilmService(new InMemoryFilmStorage(), new FilmValidator());
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        recommendationService = new RecommendationService(storage, userStorage, 50, 1_000, 10_000,
+                Duration.ofMinutes(10));
+        trendingService = new TrendingService(storage);
+        searchService = new SearchService(storage);
+        service = new FilmService(storage, new FilmValidator(), recommendationService, trendingService,
+                searchService);
         testFilmForCreate = new Film();
         testFilmForCreate.setName("Вначале");
         testFilmForCreate.setDescription("Приквел Вавилона 5");
@@ -363,4 +385,251 @@ public class FilmServiceTest {
         assertEquals(film2, popularFilms.get(1));
         assertEquals(film1, popularFilms.get(2));
     }
+
+    @Test
+    @DisplayName("Рейтинг должен обновляться при удалении лайка и ограничиваться count")
+    void shouldUpdateRankingOnLikeRemoval() {
+        Film film1 = service.create(testFilmForCreate);
+        Film film2 = new Film();
+        film2.setName("Третье пространство");
+        service.create(film2);
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+        service.addLike(film1.getId(), user1);
+        service.addLike(film2.getId(), user1);
+        service.addLike(film2.getId(), user2);
+        service.addLike(film2.getId(), user2);
+        assertEquals(List.of(film2), service.getMostPopularFilms(1));
+        assertEquals(2, service.getById(film2.getId()).orElseThrow().getLikeCount());
+        service.removeLike(film2.getId(), user1);
+        service.removeLike(film2.getId(), user2);
+        assertEquals(0, service.getById(film2.getId()).orElseThrow().getLikeCount());
+        assertEquals(List.of(film1, film2), service.getMostPopularFilms(10));
+    }
+
+    @Test
+    @DisplayName("Лайки из разных потоков не должны теряться")
+    void shouldNotLoseConcurrentLikes() throws Exception {
+        Film film1 = service.create(testFilmForCreate);
+        Film film2 = new Film();
+        film2.setName("Третье пространство");
+        service.create(film2);
+        int threads = 8;
+        int likesPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long firstUserId = (long) t * likesPerThread;
+                futures.add(executor.submit(() -> {
+                    for (long userId = firstUserId; userId < firstUserId + likesPerThread; userId++) {
+                        User user = new User();
+                        user.setId(userId);
+                        service.addLike(film1.getId(), user);
+                        if (userId % 2 == 0) {
+                            service.addLike(film2.getId(), user);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * likesPerThread, film1.getLikes().size());
+        assertEquals(threads * likesPerThread / 2, film2.getLikes().size());
+        assertEquals(List.of(film1, film2), service.getMostPopularFilms(2));
+    }
+
+    @Test
+    @DisplayName("Менеджер должен выдавать уникальные id при параллельном создании фильмов")
+    void shouldGenerateUniqueIdsConcurrently() throws Exception {
+        int threads = 8;
+        int filmsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < filmsPerThread; i++) {
+                        Film film = new Film();
+                        film.setName("Фильм");
+                        service.create(film);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Set<Long> ids = service.list().stream().map(Film::getId).collect(Collectors.toSet());
+        assertEquals(threads * filmsPerThread, ids.size());
+        assertEquals(threads * filmsPerThread, ids.stream().mapToLong(Long::longValue).max().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Менеджер должен отдавать фильмы страницами по возрастанию id")
+    void shouldListFilmsByKeysetPages() {
+        for (int i = 0; i < 5; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            service.create(film);
+        }
+        service.delete(3L);
+        List<Long> firstPage = service.list(0, 2).stream().map(Film::getId).toList();
+        List<Long> secondPage = service.list(firstPage.get(1), 2).stream().map(Film::getId).toList();
+        List<Long> lastPage = service.list(secondPage.get(1), 2).stream().map(Film::getId).toList();
+        assertEquals(List.of(1L, 2L), firstPage);
+        assertEquals(List.of(4L, 5L), secondPage);
+        assertEquals(List.of(), lastPage);
+    }
+
+    @Test
+    @DisplayName("Обход для выгрузки должен вернуть все фильмы по порядку через несколько страниц")
+    void shouldIterateAllFilmsAcrossPages() {
+        for (int i = 0; i < 2_500; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            service.create(film);
+        }
+        List<Long> ids = new ArrayList<>();
+        service.iterateAll().forEachRemaining(film -> ids.add(film.getId()));
+        assertEquals(2_500, ids.size());
+        assertEquals(1L, ids.get(0));
+        assertEquals(2_500L, ids.get(2_499));
+    }
+
+    @Test
+    @DisplayName("Рекомендации должны предлагать фильмы похожих пользователей и учитывать новые лайки")
+    void shouldRecommendFilmsLikedBySimilarUsers() {
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            service.create(film);
+        }
+        User[] users = new User[5];
+        for (int i = 1; i <= 4; i++) {
+            users[i] = new User();
+            users[i].setLogin("user" + i);
+            userStorage.save(users[i]);
+        }
+        service.addLike(1L, users[1]);
+        service.addLike(2L, users[1]);
+        service.addLike(1L, users[2]);
+        service.addLike(2L, users[2]);
+        service.addLike(3L, users[2]);
+        service.addLike(1L, users[3]);
+        service.addLike(4L, users[3]);
+        service.addLike(5L, users[4]);
+        assertEquals(List.of(3L, 4L), recommendationService.recommend(1L, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), recommendationService.recommend(1L, 1).stream().map(Film::getId).toList());
+        service.addLike(3L, users[1]);
+        assertEquals(List.of(4L), recommendationService.recommend(1L, 10).stream().map(Film::getId).toList());
+        service.delete(4L);
+        assertEquals(List.of(), recommendationService.recommend(1L, 10));
+        assertThrows(ValidationException.class, () -> recommendationService.recommend(1L, 0));
+    }
+
+    @Test
+    @DisplayName("Популярные за окно должны учитывать лайки и отмены через менеджер")
+    void shouldRankTrendingFilmsByLikesInWindow() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            service.create(film);
+        }
+        User first = new User();
+        first.setId(1L);
+        User second = new User();
+        second.setId(2L);
+        service.addLike(2L, first);
+        service.addLike(2L, second);
+        service.addLike(3L, first);
+        service.addLike(1L, first);
+        service.removeLike(1L, first);
+        List<Long> trending = trendingService.getTrendingFilms(TrendingService.Window.HOUR, 10).stream()
+                .map(Film::getId)
+                .toList();
+        assertEquals(List.of(2L, 3L), trending);
+        service.delete(2L);
+        assertEquals(List.of(3L), trendingService.getTrendingFilms(TrendingService.Window.WEEK, 10).stream()
+                .map(Film::getId)
+                .toList());
+        assertThrows(ValidationException.class, () -> TrendingService.Window.parse("1d"));
+    }
+
+    @Test
+    @DisplayName("Рейтинг за год должен следовать за изменением даты выпуска и лайками")
+    void shouldRankPopularFilmsWithinReleaseYear() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(2000 + i % 2, 6, 1));
+            service.create(film);
+        }
+        User user = new User();
+        user.setId(1L);
+        service.addLike(3L, user);
+        assertEquals(List.of(3L, 1L), service.getMostPopularFilms(10, 2001).stream().map(Film::getId).toList());
+        assertEquals(List.of(2L), service.getMostPopularFilms(10, 2000).stream().map(Film::getId).toList());
+
+        Film moved = service.getById(3L).orElseThrow();
+        moved.setReleaseDate(LocalDate.of(2000, 1, 1));
+        service.update(moved);
+        assertEquals(List.of(1L), service.getMostPopularFilms(10, 2001).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 2L), service.getMostPopularFilms(10, 2000).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), service.getMostPopularFilms(1, 2000).stream().map(Film::getId).toList());
+        assertThrows(ValidationException.class, () -> service.getMostPopularFilms(10, 0));
+        assertThrows(ValidationException.class, () -> service.getMostPopularFilms(10, Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Поиск должен находить фильмы по словам и префиксам, ранжируя название выше описания")
+    void shouldSearchFilmsByWordsAndPrefixes() {
+        Film hedgehog = new Film();
+        hedgehog.setName("Ёжик в тумане");
+        hedgehog.setDescription("Мультфильм о дружбе");
+        service.create(hedgehog);
+        Film fog = new Film();
+        fog.setName("The Fog");
+        fog.setDescription("Ежик и медвежонок в густом тумане");
+        service.create(fog);
+        Film other = new Film();
+        other.setName("Сталкер");
+        other.setDescription("Зона");
+        service.create(other);
+
+        assertEquals(List.of(1L, 2L), ids(searchService.search("ежик ТУМАН", 10)));
+        assertEquals(List.of(2L), ids(searchService.search("fog", 10)));
+        assertEquals(List.of(3L), ids(searchService.search("стал", 10)));
+        assertEquals(List.of(), searchService.search("ежик зона", 10));
+
+        Film remake = new Film();
+        remake.setName("Ёжик в тумане");
+        service.create(remake);
+        assertEquals(List.of(1L, 4L, 2L), ids(searchService.search("ежик", 10)));
+        User user = new User();
+        user.setId(1L);
+        service.addLike(4L, user);
+        assertEquals(List.of(4L, 1L, 2L), ids(searchService.search("ежик", 10)));
+        assertEquals(List.of(4L), ids(searchService.search("ежик", 1)));
+
+        other.setName("Солярис");
+        service.update(other);
+        assertEquals(List.of(), searchService.search("сталкер", 10));
+        assertEquals(List.of(3L), ids(searchService.search("солярис", 10)));
+        service.delete(1L);
+        assertEquals(List.of(4L, 2L), ids(searchService.search("ежик", 10)));
+        assertThrows(ValidationException.class, () -> searchService.search(" ,! ", 10));
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
 }
@@ -3,18 +3,30 @@ package ru.yandex.practicum.filmorate.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFriendshipStorage;
 import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.validator.UserValidator;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UserServiceTest {
     private UserService service;
@@ -23,7 +35,10 @@ public class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new UserService(new InMemoryUserStorage(), new UserValidator());
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        service = new UserService(new InMemoryUserStorage(), friendshipStorage,
+                new FriendSuggestionService(friendshipStorage, 1_000, 4, 1_000, Duration.ofMinutes(10)),
+                new UserValidator());
         testUserForCreate = new User();
         testUserForCreate.setName("Evgenii");
         testUserForCreate.setLogin("evgen");
@@ -277,4 +292,173 @@ public class UserServiceTest {
         assertEquals(1, users.size());
         assertEquals(testUserForUpdate.getBirthday(), users.get(0).getBirthday());
     }
+
+    @Test
+    @DisplayName("Логин и email должны быть уникальными, а пользователь — находиться по логину")
+    void shouldKeepLoginAndEmailUnique() {
+        User created = service.create(testUserForCreate);
+        assertEquals(created, service.getByLogin("evgen").orElseThrow());
+
+        User sameLogin = new User();
+        sameLogin.setLogin("evgen");
+        sameLogin.setEmail("other@yandex.ru");
+        assertThrows(ConflictException.class, () -> service.create(sameLogin));
+        User sameEmail = new User();
+        sameEmail.setLogin("other");
+        sameEmail.setEmail("evgen@gmail.com");
+        assertThrows(ConflictException.class, () -> service.create(sameEmail));
+        User twin = new User();
+        twin.setLogin("twin");
+        twin.setEmail("twin@yandex.ru");
+        User otherTwin = new User();
+        otherTwin.setLogin("twin");
+        otherTwin.setEmail("other.twin@yandex.ru");
+        assertThrows(ConflictException.class, () -> service.createAll(List.of(twin, otherTwin)));
+        assertEquals(1, service.list().size());
+
+        service.update(testUserForUpdate);
+        assertTrue(service.getByLogin("evgen").isEmpty());
+        assertEquals(2L, service.create(sameLogin).getId());
+        assertEquals(2, service.list().size());
+    }
+
+    @Test
+    @DisplayName("Создание пользователя с логином удаляемого должно ждать конца удаления")
+    void shouldNotSaveUserWhileDeletingOwnerOfLogin() throws Exception {
+        CountDownLatch deleting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryUserStorage storage = new InMemoryUserStorage() {
+            @Override
+            protected void onDelete(User user) {
+                super.onDelete(user);
+                deleting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Long oldId = storage.save(testUserForCreate).getId();
+        User sameLogin = new User();
+        sameLogin.setLogin("evgen");
+        sameLogin.setEmail("other@yandex.ru");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> delete = executor.submit(() -> storage.delete(oldId));
+            deleting.await();
+            Future<User> save = executor.submit(() -> storage.save(sameLogin));
+            assertThrows(TimeoutException.class, () -> save.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            delete.get();
+            Long newId = save.get().getId();
+            assertEquals(newId, storage.findByLogin("evgen").orElseThrow().getId());
+            assertTrue(storage.findById(oldId).isEmpty());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Дружба, заключённая из разных потоков, не должна теряться")
+    void shouldNotLoseConcurrentFriendships() throws Exception {
+        int threads = 8;
+        int usersPerThread = 100;
+        User popularUser = service.create(testUserForCreate);
+        List<User> friends = new ArrayList<>();
+        for (int i = 0; i < threads * usersPerThread; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            friends.add(service.create(user));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<User> chunk = friends.subList(t * usersPerThread, (t + 1) * usersPerThread);
+                futures.add(executor.submit(() -> chunk.forEach(friend ->
+                        service.makeFriendship(friend.getId(), popularUser.getId()))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * usersPerThread, service.getFriends(popularUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Общие друзья должны возвращаться один раз и по возрастанию id")
+    void shouldFindCommonFriendsOnce() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            users.add(service.create(user));
+        }
+        service.makeFriendship(users.get(0).getId(), users.get(4).getId());
+        service.makeFriendship(users.get(0).getId(), users.get(2).getId());
+        service.makeFriendship(users.get(0).getId(), users.get(3).getId());
+        service.makeFriendship(users.get(1).getId(), users.get(4).getId());
+        service.makeFriendship(users.get(1).getId(), users.get(2).getId());
+        assertEquals(List.of(users.get(2), users.get(4)),
+                service.findCommonFriends(users.get(0).getId(), users.get(1).getId()));
+    }
+
+    @Test
+    @DisplayName("Рекомендации должны упорядочиваться по числу общих друзей без самого пользователя и его друзей")
+    void shouldSuggestFriendsOfFriendsByMutualFriends() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            ids.add(service.create(user).getId());
+        }
+        long me = ids.get(0);
+        for (int friend = 1; friend <= 5; friend++) {
+            service.makeFriendship(me, ids.get(friend));
+            service.makeFriendship(ids.get(friend), ids.get(6));
+        }
+        service.makeFriendship(ids.get(1), ids.get(7));
+        service.makeFriendship(ids.get(2), ids.get(7));
+        service.makeFriendship(ids.get(3), ids.get(8));
+        service.makeFriendship(ids.get(1), ids.get(2));
+
+        assertEquals(List.of(ids.get(6), ids.get(7), ids.get(8)),
+                service.getFriendSuggestions(me, 10).stream().map(User::getId).toList());
+        assertEquals(List.of(ids.get(6)), service.getFriendSuggestions(me, 1).stream().map(User::getId).toList());
+        assertThrows(ValidationException.class, () -> service.getFriendSuggestions(me, 0));
+        assertThrows(NotFoundException.class, () -> service.getFriendSuggestions(-1L, 10));
+    }
+
+    @Test
+    @DisplayName("Изменение дружбы у друга должно сбрасывать закешированные рекомендации")
+    void shouldInvalidateSuggestionsOnFriendshipChanges() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@yandex.ru");
+            ids.add(service.create(user).getId());
+        }
+        service.makeFriendship(ids.get(0), ids.get(1));
+        assertEquals(List.of(), service.getFriendSuggestions(ids.get(0), 10));
+
+        service.makeFriendship(ids.get(1), ids.get(2));
+        assertEquals(List.of(ids.get(2)),
+                service.getFriendSuggestions(ids.get(0), 10).stream().map(User::getId).toList());
+
+        service.makeFriendship(ids.get(0), ids.get(2));
+        service.makeFriendship(ids.get(2), ids.get(3));
+        assertEquals(List.of(ids.get(3)),
+                service.getFriendSuggestions(ids.get(0), 10).stream().map(User::getId).toList());
+
+        service.ruinFriendship(ids.get(3), ids.get(2));
+        assertEquals(List.of(), service.getFriendSuggestions(ids.get(0), 10));
+    }
 }
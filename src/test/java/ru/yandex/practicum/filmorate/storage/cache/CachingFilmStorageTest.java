@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingFilmStorageTest {
+    private Cache<Long, Film> cache;
+    private CachingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        cache = Caffeine.newBuilder().maximumSize(100).recordStats().build();
+        storage = new CachingFilmStorage(new InMemoryFilmStorage(), cache);
+    }
+
+    @Test
+    @DisplayName("Повторное чтение фильма должно обслуживаться из кэша")
+    void shouldServeRepeatedReadsFromCache() {
+        Film film = storage.save(newFilm("Вначале"));
+        storage.findById(film.getId());
+        storage.findById(film.getId());
+        storage.findAllById(List.of(film.getId(), 42L));
+        assertEquals(2, cache.stats().missCount());
+        assertEquals(2, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Сохранение и удаление должны сбрасывать запись в кэше")
+    void shouldInvalidateOnSaveAndDelete() {
+        Film film = storage.save(newFilm("Вначале"));
+        storage.findById(film.getId());
+        Film updated = newFilm("Третье пространство");
+        updated.setId(film.getId());
+        storage.save(updated);
+        assertEquals("Третье пространство", storage.findById(film.getId()).orElseThrow().getName());
+        storage.delete(film.getId());
+        assertTrue(storage.findById(film.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Изменение полученного фильма не должно менять запись в кэше")
+    void shouldReturnCopiesOfCachedFilms() {
+        Film film = storage.save(newFilm("Вначале"));
+        Film found = storage.findById(film.getId()).orElseThrow();
+        found.setName("Третье пространство");
+        found.addLike(1L);
+        storage.findAllById(List.of(film.getId())).get(0).addLike(2L);
+
+        Film cached = storage.findById(film.getId()).orElseThrow();
+        assertEquals("Вначале", cached.getName());
+        assertTrue(cached.getLikes().isEmpty());
+        assertEquals(0, cached.getLikeCount());
+        assertEquals(2, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Фильмы, прочитанные пакетом мимо кэша, не должны в него попадать")
+    void shouldNotCacheBulkLoadedFilms() {
+        Film first = storage.save(newFilm("Вначале"));
+        Film second = storage.save(newFilm("Третье пространство"));
+        storage.findById(first.getId());
+        assertEquals(List.of(second.getId(), first.getId()),
+                storage.findAllById(List.of(second.getId(), first.getId(), 42L)).stream().map(Film::getId).toList());
+        assertNull(cache.getIfPresent(second.getId()));
+        assertEquals(1, cache.estimatedSize());
+    }
+
+    @Test
+    @DisplayName("Ошибка создания фильма не должна подменяться ошибкой сброса кэша")
+    void shouldPropagateFailedCreate() {
+        CachingFilmStorage failing = new CachingFilmStorage(new InMemoryFilmStorage() {
+            @Override
+            public Film save(Film film) {
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+
+            @Override
+            public List<Film> saveAll(Collection<Film> films) {
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+        }, cache);
+        assertThrows(IllegalStateException.class, () -> failing.save(newFilm("Вначале")));
+        assertThrows(IllegalStateException.class, () -> failing.saveAll(List.of(newFilm("Вначале"))));
+    }
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        return film;
+    }
+}
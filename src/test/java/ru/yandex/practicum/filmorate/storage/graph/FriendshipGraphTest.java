@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.graph;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendshipGraphTest {
+    private final FriendshipGraph graph = new FriendshipGraph();
+
+    @Test
+    @DisplayName("Граф должен совпадать с эталоном на случайных изменениях вперемешку с уплотнениями")
+    void shouldMatchModelAcrossCompactions() {
+        Random random = new Random(42);
+        Map<Long, TreeSet<Long>> model = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long user = random.nextInt(300);
+            long friend = random.nextInt(300);
+            boolean expected;
+            if (random.nextInt(3) == 0) {
+                expected = model.computeIfAbsent(user, key -> new TreeSet<>()).remove(friend);
+                model.computeIfAbsent(friend, key -> new TreeSet<>()).remove(user);
+                assertEquals(expected, graph.removeFriend(user, friend));
+            } else {
+                expected = model.computeIfAbsent(user, key -> new TreeSet<>()).add(friend);
+                model.computeIfAbsent(friend, key -> new TreeSet<>()).add(user);
+                assertEquals(expected, graph.addFriend(user, friend));
+            }
+            if (i % 3_000 == 0) {
+                graph.compact(() -> {
+                });
+            }
+        }
+        assertMatches(model);
+        graph.compact(() -> {
+        });
+        assertMatches(model);
+    }
+
+    @Test
+    @DisplayName("Соседи должны возвращаться по возрастанию и для вершин за пределами графа")
+    void shouldReturnSortedNeighbors() {
+        graph.addFriend(5, 3);
+        graph.addFriend(5, 1);
+        graph.compact(() -> {
+        });
+        graph.addFriend(5, 2);
+        graph.removeFriend(1, 5);
+
+        assertArrayEquals(new long[]{2, 3}, graph.findFriendIds(5));
+        assertArrayEquals(new long[]{5}, graph.findFriendIds(3));
+        assertEquals(0, graph.findFriendIds(1_000).length);
+        assertEquals(0, graph.findFriendIds(-1).length);
+        assertThrows(NotFoundException.class, () -> graph.addFriend(1, Integer.MAX_VALUE));
+        assertEquals(0, graph.degree(Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    @DisplayName("Изменения из разных потоков не должны теряться во время уплотнений")
+    void shouldNotLoseConcurrentChanges() throws Exception {
+        int threads = 4;
+        int usersPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = 1 + t * usersPerThread;
+                futures.add(executor.submit(() -> {
+                    for (int user = first; user < first + usersPerThread; user++) {
+                        graph.addFriend(0, user);
+                        graph.addFriend(user, user + 1);
+                    }
+                }));
+            }
+            Future<?> compactions = executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    graph.compact(() -> {
+                    });
+                }
+            });
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            compactions.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * usersPerThread, graph.findFriendIds(0).length);
+        graph.compact(() -> {
+        });
+        assertEquals(threads * usersPerThread, graph.findFriendIds(0).length);
+        assertEquals(2 * threads * usersPerThread * 2, graph.edges());
+    }
+
+    private void assertMatches(Map<Long, TreeSet<Long>> model) {
+        for (long user = 0; user < 300; user++) {
+            long[] expected = model.getOrDefault(user, new TreeSet<>()).stream().mapToLong(Long::longValue).toArray();
+            assertArrayEquals(expected, graph.findFriendIds(user), "соседи пользователя " + user);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ActiveProfiles("db")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class, JdbcFriendshipStorage.class})
+public class JdbcStorageTest {
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+    @Autowired
+    private JdbcUserStorage userStorage;
+    @Autowired
+    private JdbcFriendshipStorage friendshipStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private User firstUser;
+    private User secondUser;
+
+    @BeforeEach
+    void setUp() {
+        firstUser = userStorage.save(newUser("evgen"));
+        secondUser = userStorage.save(newUser("eugen"));
+    }
+
+    @Test
+    @DisplayName("Хранилище должно сохранять фильм вместе с лайками")
+    void shouldSaveFilmWithLikes() {
+        Film film = new Film();
+        film.setName("Вначале");
+        film.setDescription("Приквел Вавилона 5");
+        film.setReleaseDate(LocalDate.of(1998, 1, 4));
+        film.setDuration(94);
+        film.addLike(firstUser.getId());
+        film.addLike(secondUser.getId());
+        Film saved = filmStorage.save(film);
+        assertNotNull(saved.getId());
+        Film found = filmStorage.findById(saved.getId()).orElseThrow();
+        assertEquals(film, found);
+        assertEquals(Set.of(firstUser.getId(), secondUser.getId()), found.getLikes());
+
+        found.removeLike(firstUser.getId());
+        filmStorage.save(found);
+        assertEquals(Set.of(secondUser.getId()), filmStorage.findById(saved.getId()).orElseThrow().getLikes());
+
+        filmStorage.delete(saved.getId());
+        assertTrue(filmStorage.findById(saved.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Хранилище должно возвращать фильмы по убыванию числа лайков")
+    void shouldFindMostPopularFilms() {
+        Film withoutLikes = newFilm("Без лайков");
+        Film withOneLike = newFilm("Один лайк");
+        withOneLike.addLike(firstUser.getId());
+        Film withTwoLikes = newFilm("Два лайка");
+        withTwoLikes.addLike(firstUser.getId());
+        withTwoLikes.addLike(secondUser.getId());
+        filmStorage.save(withoutLikes);
+        filmStorage.save(withOneLike);
+        filmStorage.save(withTwoLikes);
+        assertEquals(List.of(withTwoLikes, withOneLike, withoutLikes), filmStorage.findMostPopular(10));
+        assertEquals(List.of(withTwoLikes), filmStorage.findMostPopular(1));
+    }
+
+    @Test
+    @DisplayName("Рейтинг за год должен учитывать только фильмы, вышедшие в этом году")
+    void shouldFindMostPopularFilmsOfYear() {
+        Film older = newFilm("Старый");
+        older.setReleaseDate(LocalDate.of(1998, 12, 31));
+        older.addLike(firstUser.getId());
+        Film first = newFilm("Первый");
+        first.setReleaseDate(LocalDate.of(1999, 1, 1));
+        Film second = newFilm("Второй");
+        second.setReleaseDate(LocalDate.of(1999, 12, 31));
+        second.addLike(secondUser.getId());
+        filmStorage.saveAll(List.of(older, first, second));
+        assertEquals(List.of(second, first), filmStorage.findMostPopular(10, 1999));
+        assertEquals(List.of(), filmStorage.findMostPopular(10, 2000));
+    }
+
+    @Test
+    @DisplayName("Хранилище должно сохранять дружбу в обе стороны")
+    void shouldSaveUserFriends() {
+        assertTrue(friendshipStorage.addFriend(firstUser.getId(), secondUser.getId()));
+        assertFalse(friendshipStorage.addFriend(secondUser.getId(), firstUser.getId()));
+        assertArrayEquals(new long[]{secondUser.getId()}, friendshipStorage.findFriendIds(firstUser.getId()));
+        assertArrayEquals(new long[]{firstUser.getId()}, friendshipStorage.findFriendIds(secondUser.getId()));
+        Map<Long, long[]> friends = friendshipStorage.findFriendIds(
+                List.of(firstUser.getId(), secondUser.getId(), -1L));
+        assertArrayEquals(new long[]{secondUser.getId()}, friends.get(firstUser.getId()));
+        assertArrayEquals(new long[]{firstUser.getId()}, friends.get(secondUser.getId()));
+        assertEquals(0, friends.get(-1L).length);
+
+        assertTrue(friendshipStorage.removeFriend(secondUser.getId(), firstUser.getId()));
+        assertFalse(friendshipStorage.removeFriend(firstUser.getId(), secondUser.getId()));
+        assertEquals(0, friendshipStorage.findFriendIds(firstUser.getId()).length);
+        assertEquals(0, friendshipStorage.findFriendIds(secondUser.getId()).length);
+    }
+
+    @Test
+    @DisplayName("Пакетный поиск должен возвращать найденных пользователей в порядке запроса")
+    void shouldFindAllByIdInRequestOrder() {
+        List<User> found = userStorage.findAllById(List.of(secondUser.getId(), -1L, firstUser.getId()));
+        assertEquals(List.of(secondUser, firstUser), found);
+        assertEquals(2, userStorage.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Хранилище должно отдавать пользователей страницами после заданного id")
+    void shouldFindPageAfterId() {
+        assertEquals(List.of(firstUser, secondUser), userStorage.findPage(0, 10));
+        assertEquals(List.of(secondUser), userStorage.findPage(firstUser.getId(), 10));
+        assertEquals(List.of(firstUser), userStorage.findPage(0, 1));
+    }
+
+    @Test
+    @DisplayName("Лайк должен ставиться и сниматься отдельным запросом, повтор ничего не меняет")
+    void shouldChangeLikesWithoutRewritingFilm() {
+        Film film = filmStorage.save(newFilm("Вначале"));
+        assertTrue(filmStorage.addLike(film.getId(), firstUser.getId()));
+        assertFalse(filmStorage.addLike(film.getId(), firstUser.getId()));
+        assertTrue(filmStorage.addLike(film.getId(), secondUser.getId()));
+        assertEquals(Set.of(firstUser.getId(), secondUser.getId()),
+                filmStorage.findById(film.getId()).orElseThrow().getLikes());
+
+        assertTrue(filmStorage.removeLike(film.getId(), firstUser.getId()));
+        assertFalse(filmStorage.removeLike(film.getId(), firstUser.getId()));
+        assertEquals(Set.of(secondUser.getId()), filmStorage.findById(film.getId()).orElseThrow().getLikes());
+        assertEquals(1, filmStorage.findById(film.getId()).orElseThrow().getLikeCount());
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(-1L, firstUser.getId()));
+        assertThrows(NotFoundException.class, () -> filmStorage.removeLike(-1L, firstUser.getId()));
+    }
+
+    @Test
+    @DisplayName("Пакетные лайки и дружба должны возвращать только новые записи и пропускать неизвестные фильмы")
+    void shouldAddLikesAndFriendsInBatches() {
+        Film other = filmStorage.save(newFilm("Другой"));
+        filmStorage.addLike(other.getId(), firstUser.getId());
+        Film film = filmStorage.save(newFilm("Вначале"));
+        filmStorage.addLike(film.getId(), firstUser.getId());
+        Map<Long, long[]> added = filmStorage.addLikes(Map.of(
+                film.getId(), new long[]{firstUser.getId(), secondUser.getId(), secondUser.getId()},
+                -1L, new long[]{firstUser.getId()}));
+        assertEquals(Set.of(film.getId()), added.keySet());
+        assertArrayEquals(new long[]{secondUser.getId()}, added.get(film.getId()));
+        Film found = filmStorage.findById(film.getId()).orElseThrow();
+        assertEquals(Set.of(firstUser.getId(), secondUser.getId()), found.getLikes());
+        assertEquals(List.of(film.getId(), other.getId()), ids(filmStorage.findMostPopular(10)));
+        Map<Long, long[]> removed = filmStorage.removeLikes(Map.of(
+                film.getId(), new long[]{firstUser.getId(), secondUser.getId()},
+                other.getId(), new long[]{secondUser.getId()}));
+        assertEquals(Set.of(film.getId()), removed.keySet());
+        assertEquals(List.of(other.getId(), film.getId()), ids(filmStorage.findMostPopular(10)));
+
+        Map<Long, long[]> friends = friendshipStorage.addFriends(Map.of(
+                firstUser.getId(), new long[]{secondUser.getId()},
+                secondUser.getId(), new long[]{firstUser.getId()}));
+        assertEquals(1, friends.values().stream().mapToInt(ids -> ids.length).sum());
+        assertArrayEquals(new long[]{secondUser.getId()}, friendshipStorage.findFriendIds(firstUser.getId()));
+        assertArrayEquals(new long[]{firstUser.getId()}, friendshipStorage.findFriendIds(secondUser.getId()));
+        assertTrue(friendshipStorage.addFriends(Map.of(firstUser.getId(), new long[]{secondUser.getId()})).isEmpty());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Пакет лайков не должен откатываться, если ту же пару параллельно вставил другой писатель")
+    void shouldToleratePairInsertedByConcurrentBatch() throws Exception {
+        User thirdUser = userStorage.save(newUser("ivan"));
+        Film film = filmStorage.save(newFilm("Вначале"));
+        try {
+            CountDownLatch inserted = new CountDownLatch(1);
+            // Первая пачка держит транзакцию открытой: вторая проходит NOT EXISTS и упирается в уникальный ключ.
+            CompletableFuture<Map<Long, long[]>> first = CompletableFuture.supplyAsync(() ->
+                    new TransactionTemplate(transactionManager).execute(status -> {
+                        Map<Long, long[]> added = filmStorage.addLikes(Map.of(
+                                film.getId(), new long[]{firstUser.getId(), secondUser.getId()}));
+                        inserted.countDown();
+                        try {
+                            TimeUnit.MILLISECONDS.sleep(500);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return added;
+                    }));
+            assertTrue(inserted.await(5, TimeUnit.SECONDS));
+            Map<Long, long[]> second = filmStorage.addLikes(Map.of(
+                    film.getId(), new long[]{secondUser.getId(), thirdUser.getId()}));
+
+            assertEquals(2, first.get(5, TimeUnit.SECONDS).get(film.getId()).length);
+            assertArrayEquals(new long[]{thirdUser.getId()}, second.get(film.getId()));
+            assertEquals(Set.of(firstUser.getId(), secondUser.getId(), thirdUser.getId()),
+                    filmStorage.findById(film.getId()).orElseThrow().getLikes());
+            Film other = newFilm("Другой");
+            other.addLike(firstUser.getId());
+            other.addLike(secondUser.getId());
+            other.addLike(thirdUser.getId());
+            other = filmStorage.save(other);
+            assertEquals(List.of(film.getId(), other.getId()), ids(filmStorage.findMostPopular(10)));
+            filmStorage.removeLike(film.getId(), firstUser.getId());
+            assertEquals(List.of(other.getId(), film.getId()), ids(filmStorage.findMostPopular(10)));
+            filmStorage.delete(other.getId());
+        } finally {
+            filmStorage.delete(film.getId());
+            userStorage.delete(firstUser.getId());
+            userStorage.delete(secondUser.getId());
+            userStorage.delete(thirdUser.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Рейтинг должен строиться по счётчику лайков, который следует за лайками и удалением пользователей")
+    void shouldRankByMaintainedLikeCount() {
+        User thirdUser = userStorage.save(newUser("ivan"));
+        Film first = newFilm("Первый");
+        first.addLike(firstUser.getId());
+        first = filmStorage.save(first);
+        Film second = filmStorage.save(newFilm("Второй"));
+        filmStorage.addLike(second.getId(), secondUser.getId());
+        filmStorage.addLike(second.getId(), thirdUser.getId());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmStorage.findMostPopular(10)));
+
+        userStorage.delete(secondUser.getId());
+        assertEquals(List.of(first.getId(), second.getId()), ids(filmStorage.findMostPopular(10)));
+        filmStorage.removeLike(first.getId(), firstUser.getId());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmStorage.findMostPopular(10)));
+    }
+
+    @Test
+    @DisplayName("Хранилище должно искать пользователя по логину и email и не допускать их повторов")
+    void shouldKeepLoginAndEmailUnique() {
+        assertEquals(firstUser, userStorage.findByLogin("evgen").orElseThrow());
+        assertEquals(secondUser, userStorage.findByEmail("eugen@yandex.ru").orElseThrow());
+        assertTrue(userStorage.findByLogin("Evgen").isEmpty());
+
+        User sameLogin = newUser("evgen");
+        sameLogin.setEmail("other@yandex.ru");
+        ConflictException conflict = assertThrows(ConflictException.class, () -> userStorage.save(sameLogin));
+        assertEquals("Пользователь с таким login уже существует", conflict.getMessage());
+        secondUser.setEmail(firstUser.getEmail());
+        conflict = assertThrows(ConflictException.class, () -> userStorage.save(secondUser));
+        assertEquals("Пользователь с таким email уже существует", conflict.getMessage());
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        return film;
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setName(login);
+        user.setEmail(login + "@yandex.ru");
+        user.setBirthday(LocalDate.of(1985, 10, 11));
+        return user;
+    }
+}
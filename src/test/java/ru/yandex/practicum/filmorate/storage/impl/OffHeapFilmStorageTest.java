@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.offheap.StringDictionary;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapFilmStorageTest {
+    private final OffHeapFilmStorage storage = new OffHeapFilmStorage();
+
+    @Test
+    @DisplayName("Фильм должен читаться из колонок в том же виде, в каком был сохранён")
+    void shouldMaterializeSavedFilm() {
+        Film film = film("Сталкер", "Зона исполняет желания — «самые сокровенные»");
+        film.setLikes(Set.of(1L, 2L));
+        Film withoutOptional = new Film();
+        withoutOptional.setName("Без даты");
+
+        storage.save(film);
+        storage.save(withoutOptional);
+
+        assertEquals(film, storage.findById(1L).orElseThrow());
+        assertNotSame(film, storage.findById(1L).orElseThrow());
+        Film restored = storage.findById(2L).orElseThrow();
+        assertNull(restored.getDescription());
+        assertNull(restored.getReleaseDate());
+        assertNull(restored.getDuration());
+        assertTrue(restored.getLikes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Обновление и удаление должны отражаться в выборках и рейтинге")
+    void shouldUpdateAndDelete() {
+        for (int i = 1; i <= 20_000; i++) {
+            storage.save(film("Фильм " + i, "Описание"));
+        }
+        Film liked = storage.findById(17_000L).orElseThrow();
+        liked.addLike(5L);
+        liked.setName("Новое название");
+        liked.setReleaseDate(LocalDate.of(1980, 5, 17));
+        storage.save(liked);
+        storage.delete(2L);
+        storage.delete(2L);
+
+        assertEquals("Новое название", storage.findById(17_000L).orElseThrow().getName());
+        assertEquals(Set.of(5L), storage.findById(17_000L).orElseThrow().getLikes());
+        assertTrue(storage.findById(2L).isEmpty());
+        assertTrue(storage.findById(20_001L).isEmpty());
+        assertEquals(19_999, storage.findAll().size());
+        assertEquals(List.of(1L, 3L), storage.findPage(0, 2).stream().map(Film::getId).toList());
+        assertEquals(List.of(19_999L, 20_000L), storage.findPage(19_998, 5).stream().map(Film::getId).toList());
+        assertEquals(List.of(17_000L, 1L), storage.findMostPopular(2).stream().map(Film::getId).toList());
+        assertEquals(List.of(17_000L), storage.findMostPopular(2, 1980).stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 3L), storage.findMostPopular(2, 1979).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 1L), storage.findAllById(List.of(3L, 2L, 1L)).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Лайки должны ставиться и сниматься без перезаписи фильма, повтор ничего не меняет")
+    void shouldChangeLikesInPlace() {
+        storage.save(film("Сталкер", "Описание"));
+        storage.save(film("Солярис", "Описание"));
+
+        assertTrue(storage.addLike(2L, 7L));
+        assertFalse(storage.addLike(2L, 7L));
+        assertTrue(storage.addLike(2L, 8L));
+        assertTrue(storage.addLike(1L, 7L));
+        assertEquals(Set.of(7L, 8L), storage.findById(2L).orElseThrow().getLikes());
+        assertEquals(List.of(2L, 1L), storage.findMostPopular(2).stream().map(Film::getId).toList());
+
+        assertTrue(storage.removeLike(2L, 7L));
+        assertTrue(storage.removeLike(2L, 8L));
+        assertFalse(storage.removeLike(2L, 8L));
+        assertTrue(storage.findById(2L).orElseThrow().getLikes().isEmpty());
+        assertEquals(List.of(1L, 2L), storage.findMostPopular(2, 1979).stream().map(Film::getId).toList());
+        storage.delete(1L);
+        assertThrows(NotFoundException.class, () -> storage.addLike(1L, 7L));
+        assertThrows(NotFoundException.class, () -> storage.removeLike(3L, 7L));
+    }
+
+    @Test
+    @DisplayName("Одинаковые строки должны храниться в словаре один раз")
+    void shouldDeduplicateStrings() {
+        StringDictionary dictionary = new StringDictionary();
+        long first = dictionary.intern("Драма");
+        for (int i = 0; i < 10_000; i++) {
+            dictionary.intern("Фильм " + i);
+        }
+
+        assertEquals(first, dictionary.intern("Драма"));
+        assertEquals(10_001, dictionary.size());
+        assertEquals("Фильм 9999", dictionary.get(dictionary.intern("Фильм 9999")));
+        assertEquals(StringDictionary.NULL, dictionary.intern(null));
+        assertNull(dictionary.get(StringDictionary.NULL));
+    }
+
+    @Test
+    @DisplayName("Отпущенная строка должна удаляться из словаря, а её место — доставаться новой строке")
+    void shouldReuseReleasedStrings() {
+        StringDictionary dictionary = new StringDictionary();
+        long shared = dictionary.intern("Драма");
+        dictionary.intern("Драма");
+        long other = dictionary.intern("Комедия");
+
+        dictionary.release(shared);
+        assertEquals(shared, dictionary.intern("Драма"));
+        dictionary.release(shared);
+        dictionary.release(shared);
+        assertEquals(1, dictionary.size());
+        assertEquals(shared, dictionary.intern("Фильм"));
+        assertEquals("Фильм", dictionary.get(shared));
+        assertEquals(other, dictionary.intern("Комедия"));
+        assertNotEquals(shared, dictionary.intern("Драма"));
+        dictionary.release(StringDictionary.NULL);
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("Многократное обновление одного фильма не должно увеличивать словарь")
+    void shouldKeepDictionaryBoundedOnUpdates() {
+        Film film = storage.save(film("Сталкер", "Описание 0"));
+        long initialBytes = storage.offHeapBytes();
+
+        for (int i = 1; i <= 100_000; i++) {
+            film.setName("Сталкер, версия " + i);
+            film.setDescription("Описание " + i);
+            storage.save(film);
+        }
+        storage.save(film("Солярис", "Описание 100000"));
+
+        assertEquals(initialBytes, storage.offHeapBytes());
+        assertEquals("Сталкер, версия 100000", storage.findById(1L).orElseThrow().getName());
+        assertEquals("Описание 100000", storage.findById(2L).orElseThrow().getDescription());
+        storage.delete(2L);
+        assertEquals("Описание 100000", storage.findById(1L).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("Параллельное создание фильмов должно выдавать уникальные id без потери записей")
+    void shouldSaveConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 40_000; i++) {
+            int number = i;
+            executor.submit(() -> storage.save(film("Фильм " + number, "Описание " + number % 100)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        List<Film> films = storage.findAll();
+        assertEquals(40_000, films.size());
+        assertEquals(40_000, films.stream().map(Film::getName).distinct().count());
+    }
+
+    private static Film film(String name, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(1979, 5, 25));
+        film.setDuration(163);
+        return film;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    @DisplayName("Слова удалённых и переименованных фильмов должны уходить из словаря")
+    void shouldRemoveUnusedTerms() {
+        index.put(1L, "Ёжик в тумане", "Мультфильм", 0);
+        index.put(2L, "Туман", "Фильм ужасов", 0);
+        assertEquals(7, index.termCount());
+
+        for (int i = 0; i < 1_000; i++) {
+            index.put(1L, "Ёжик " + i, "Мультфильм", 0);
+        }
+        assertEquals(6, index.termCount());
+        assertArrayEquals(new long[]{2L}, index.search("туман", 10));
+        assertArrayEquals(new long[0], index.search("998", 10));
+
+        index.remove(2L);
+        assertEquals(3, index.termCount());
+        assertArrayEquals(new long[0], index.search("туман", 10));
+        index.put(3L, "Туман", "Фильм", 0);
+        assertArrayEquals(new long[]{3L}, index.search("туман", 10));
+        assertArrayEquals(new long[]{3L}, index.search("фильм", 10));
+    }
+
+    @Test
+    @DisplayName("Отрицательный счётчик лайков не должен перекрывать баллы совпадения")
+    void shouldRankByQualityBeforeLikes() {
+        index.put(1L, "Туман", null, 0);
+        index.put(2L, "Ёжик", "Туман", 5);
+        index.addLikes(1L, -1);
+
+        assertArrayEquals(new long[]{1L, 2L}, index.search("туман", 10));
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowCounterTest {
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    @Test
+    @DisplayName("Окно должно забывать события старше своей длины по мере сдвига корзин")
+    void shouldExpireEventsOlderThanWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        long start = 1_000 * MINUTE;
+        counter.add(1, 1, start);
+        counter.add(1, 1, start);
+        counter.add(2, 1, start + 30 * MINUTE);
+        counter.add(3, 1, start + 59 * MINUTE);
+        assertEquals(List.of(1L, 2L, 3L), counter.top(10, start + 59 * MINUTE));
+        assertEquals(List.of(2L, 3L), counter.top(10, start + 60 * MINUTE));
+        counter.add(3, 1, start + 61 * MINUTE);
+        assertEquals(List.of(3L, 2L), counter.top(10, start + 61 * MINUTE));
+        assertEquals(List.of(3L), counter.top(10, start + 90 * MINUTE));
+        assertEquals(List.of(), counter.top(10, start + 500 * MINUTE));
+    }
+
+    @Test
+    @DisplayName("Отмены должны гасить только события в окне, а удалённый id — пропадать из рейтинга")
+    void shouldApplyNegativeDeltasAndRemoval() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        long now = 5_000 * MINUTE;
+        counter.add(1, 1, now);
+        counter.add(2, 1, now);
+        counter.add(2, 1, now);
+        counter.add(1, -1, now);
+        assertEquals(List.of(2L), counter.top(10, now));
+
+        // Снятие лайков, поставленных до окна, не уводит сумму фильма ниже нуля.
+        counter.add(3, -5, now);
+        counter.add(3, 1, now + MINUTE);
+        assertEquals(List.of(2L, 3L), counter.top(10, now + MINUTE));
+
+        // Отмена гасит свежее событие, и вытеснение старой корзины не делает сумму отрицательной.
+        counter.add(3, 1, now + 2 * MINUTE);
+        counter.add(3, -1, now + 3 * MINUTE);
+        counter.add(3, 1, now + 3 * MINUTE);
+        assertEquals(List.of(3L), counter.top(10, now + 61 * MINUTE));
+        assertEquals(List.of(3L), counter.top(10, now + 62 * MINUTE));
+
+        counter.remove(3);
+        assertEquals(List.of(), counter.top(10, now + 62 * MINUTE));
+    }
+}
@@ -0,0 +1,234 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("После перезапуска хранилище должно восстанавливаться из журнала")
+    void shouldRecoverFromLog() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (DurableJournal<Film> ignored = openFilms(storage, FsyncPolicy.ALWAYS)) {
+            Film first = storage.save(film("Матрица"));
+            Film second = storage.save(film("Брат"));
+            storage.save(film("Сталкер"));
+            first.addLike(7L);
+            first.addLike(8L);
+            storage.save(first);
+            storage.delete(second.getId());
+            assertTrue(storage.addLike(3L, 9L));
+            assertTrue(storage.addLike(first.getId(), 9L));
+            assertTrue(storage.removeLike(first.getId(), 9L));
+            assertThrows(NotFoundException.class, () -> storage.addLike(second.getId(), 9L));
+        }
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        try (DurableJournal<Film> ignored = openFilms(recovered, FsyncPolicy.ALWAYS)) {
+            assertEquals(storage.findAll(), recovered.findAll());
+            assertEquals(Set.of(7L, 8L), recovered.findById(1L).orElseThrow().getLikes());
+            assertEquals(Set.of(9L), recovered.findById(3L).orElseThrow().getLikes());
+            assertEquals(List.of(1L, 3L), recovered.findMostPopular(10).stream().map(Film::getId).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок должен заменять покрытые им сегменты журнала")
+    void shouldRecoverFromSnapshotAndLogTail() throws IOException {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        try (DurableJournal<User> journal = openUsers(storage)) {
+            for (int i = 0; i < 100; i++) {
+                storage.save(user("user" + i));
+            }
+            journal.checkpoint();
+            User user = storage.findById(1L).orElseThrow();
+            user.setName("Евгений");
+            storage.save(user);
+            storage.delete(100L);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count(), "должны остаться только снимок и сегмент после него");
+        }
+
+        InMemoryUserStorage recovered = new InMemoryUserStorage();
+        try (DurableJournal<User> ignored = openUsers(recovered)) {
+            assertEquals(99, recovered.findAll().size());
+            assertEquals(storage.findAll(), recovered.findAll());
+            assertEquals("Евгений", recovered.findById(1L).orElseThrow().getName());
+            assertEquals(50L, recovered.findByLogin("user49").orElseThrow().getId(), "индекс логинов из снимка");
+            assertTrue(recovered.findByEmail("user99@yandex.ru").isEmpty());
+            assertEquals(101L, recovered.save(user("new")).getId(), "id удалённой сущности не переиспользуется");
+        }
+    }
+
+    @Test
+    @DisplayName("Восстановление не должно спотыкаться о логин, занятый в снимке позже записи журнала")
+    void shouldReplayLoginSwapCapturedByFuzzySnapshot() throws IOException {
+        boolean[] swapDuringCheckpoint = new boolean[1];
+        InMemoryUserStorage storage = new InMemoryUserStorage() {
+            @Override
+            public Iterable<User> values() {
+                if (swapDuringCheckpoint[0]) {
+                    swapDuringCheckpoint[0] = false;
+                    save(renamed(1L, "k"));
+                    save(renamed(1L, "m"));
+                    save(renamed(2L, "k"));
+                }
+                return super.values();
+            }
+        };
+        try (DurableJournal<User> journal = openUsers(storage)) {
+            storage.save(user("a"));
+            storage.save(user("b"));
+            swapDuringCheckpoint[0] = true;
+            journal.checkpoint();
+        }
+
+        InMemoryUserStorage recovered = new InMemoryUserStorage();
+        try (DurableJournal<User> ignored = openUsers(recovered)) {
+            assertEquals(1L, recovered.findByLogin("m").orElseThrow().getId());
+            assertEquals(2L, recovered.findByLogin("k").orElseThrow().getId());
+            assertTrue(recovered.findByLogin("a").isEmpty());
+            assertThrows(ConflictException.class, () -> recovered.save(user("k")));
+        }
+    }
+
+    @Test
+    @DisplayName("Записи снимка должны читаться лениво вместе с изменениями после старта")
+    void shouldMergeMappedSnapshotWithChanges() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (DurableJournal<Film> journal = openFilms(storage, FsyncPolicy.NEVER)) {
+            for (int i = 1; i <= 10; i++) {
+                Film film = film("Фильм " + i);
+                for (long like = 0; like < i % 4; like++) {
+                    film.addLike(like);
+                }
+                storage.save(film);
+            }
+            journal.checkpoint();
+        }
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        try (DurableJournal<Film> journal = openFilms(recovered, FsyncPolicy.NEVER)) {
+            assertEquals(List.of(3L, 7L, 2L), recovered.findMostPopular(3).stream().map(Film::getId).toList());
+            recovered.delete(3L);
+            recovered.delete(3L);
+            assertEquals(11L, recovered.save(film("Новый")).getId());
+            Film updated = recovered.findById(5L).orElseThrow();
+            updated.setName("Обновлённый");
+            recovered.save(updated);
+
+            assertTrue(recovered.findById(3L).isEmpty());
+            assertEquals(10, recovered.size());
+            assertEquals(List.of(1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L),
+                    recovered.findAll().stream().map(Film::getId).toList());
+            assertEquals(List.of(10L, 11L), recovered.findPage(9, 5).stream().map(Film::getId).toList());
+            assertEquals(List.of(7L, 2L, 6L), recovered.findMostPopular(3).stream().map(Film::getId).toList());
+            journal.checkpoint();
+        }
+
+        InMemoryFilmStorage reopened = new InMemoryFilmStorage();
+        try (DurableJournal<Film> ignored = openFilms(reopened, FsyncPolicy.NEVER)) {
+            assertEquals(recovered.findAll(), reopened.findAll());
+            assertEquals("Обновлённый", reopened.findById(5L).orElseThrow().getName());
+            assertEquals(List.of(7L, 2L, 6L), reopened.findMostPopular(3, 1999).stream().map(Film::getId).toList());
+            assertEquals(List.of(), reopened.findMostPopular(3, 2000));
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок больше допустимого размера не должен записываться поверх прежнего")
+    void shouldRefuseSnapshotLargerThanMappable() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        List<Film> films = List.of(film("Матрица"), film("Брат"));
+        films.get(0).setId(1L);
+        films.get(1).setId(2L);
+        SnapshotFile.write(path, new SnapshotFile.Header(1, 2), films.subList(0, 1), new FilmCodec());
+        long size = Files.size(path);
+
+        assertThrows(IOException.class, () -> SnapshotFile.write(path, new SnapshotFile.Header(2, 2), films,
+                new FilmCodec(), size));
+        assertEquals(size, Files.size(path));
+        assertEquals(1, MappedSnapshot.open(path, new FilmCodec()).size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count(), "временный файл должен быть удалён");
+        }
+    }
+
+    @Test
+    @DisplayName("Оборванная последняя запись журнала должна пропускаться")
+    void shouldSkipTornTail() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (DurableJournal<Film> ignored = openFilms(storage, FsyncPolicy.NEVER)) {
+            storage.save(film("Матрица"));
+            storage.save(film("Брат"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> Files.isRegularFile(path) && !path.toString().endsWith(".tmp"))
+                    .sorted().findFirst().orElseThrow();
+        }
+        long size = Files.size(segment);
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        try (DurableJournal<Film> ignored = openFilms(recovered, FsyncPolicy.NEVER)) {
+            assertEquals(List.of("Матрица"), recovered.findAll().stream().map(Film::getName).toList());
+        }
+    }
+
+    private DurableJournal<Film> openFilms(InMemoryFilmStorage storage, FsyncPolicy policy) throws IOException {
+        return DurableJournal.open(directory, new FilmCodec(), storage, policy, Duration.ofMillis(10));
+    }
+
+    private DurableJournal<User> openUsers(InMemoryUserStorage storage) throws IOException {
+        return DurableJournal.open(directory, new UserCodec(), storage, FsyncPolicy.INTERVAL, Duration.ofMillis(10));
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(1999, 3, 31));
+        film.setDuration(136);
+        return film;
+    }
+
+    private static User renamed(long id, String login) {
+        User user = user(login);
+        user.setId(id);
+        return user;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@yandex.ru");
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.storage.graph.FriendshipGraph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FriendshipJournalTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Граф дружбы должен восстанавливаться из снимка CSR и хвоста журнала")
+    void shouldRecoverGraphFromSnapshotAndLogTail() throws IOException {
+        FriendshipGraph graph = new FriendshipGraph();
+        try (FriendshipJournal journal = open(graph)) {
+            for (int user = 2; user <= 1_000; user++) {
+                graph.addFriend(1, user);
+            }
+            journal.checkpoint();
+            graph.removeFriend(2, 1);
+            graph.addFriend(3, 4);
+        }
+
+        FriendshipGraph recovered = new FriendshipGraph();
+        try (FriendshipJournal ignored = open(recovered)) {
+            assertEquals(998, recovered.findFriendIds(1).length);
+            assertEquals(0, recovered.findFriendIds(2).length);
+            assertArrayEquals(new long[]{1, 4}, recovered.findFriendIds(3));
+            assertArrayEquals(graph.findFriendIds(1), recovered.findFriendIds(1));
+        }
+    }
+
+    private FriendshipJournal open(FriendshipGraph graph) throws IOException {
+        return FriendshipJournal.open(directory, graph, FsyncPolicy.NEVER, Duration.ofMillis(10));
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongBitmapTest {
+
+    @Test
+    @DisplayName("Битовая карта должна вести себя как TreeSet при переходах между массивом и картой блока")
+    void shouldBehaveLikeTreeSet() {
+        LongBitmap bitmap = new LongBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(3 * 65_536);
+            if (random.nextInt(3) > 0) {
+                assertEquals(expected.add(value), bitmap.add(value));
+            } else {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), bitmap.toLongArray());
+        for (long value = 0; value < 3 * 65_536; value += 7) {
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+        for (long value : expected.toArray(Long[]::new)) {
+            bitmap.remove(value);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    @DisplayName("plus и minus должны возвращать новую карту и не менять прежнюю")
+    void shouldCopyOnWrite() {
+        LongBitmap bitmap = new LongBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(13);
+        for (int i = 0; i < 20_000; i++) {
+            long value = random.nextInt(2 * 65_536);
+            long[] before = bitmap.toLongArray();
+            LongBitmap previous = bitmap;
+            if (random.nextInt(3) > 0) {
+                bitmap = bitmap.plus(value);
+                assertEquals(expected.add(value), bitmap != previous);
+            } else {
+                bitmap = bitmap.minus(value);
+                assertEquals(expected.remove(value), bitmap != previous);
+            }
+            assertArrayEquals(before, previous.toLongArray());
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), bitmap.toLongArray());
+    }
+
+    @Test
+    @DisplayName("Пересечение и разность должны совпадать с посчитанными по TreeSet для любых видов блоков")
+    void shouldIntersectAndSubtractLikeTreeSet() {
+        LongBitmap dense = new LongBitmap();
+        LongBitmap sparse = new LongBitmap();
+        TreeSet<Long> denseValues = new TreeSet<>();
+        TreeSet<Long> sparseValues = new TreeSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 60_000; i++) {
+            long value = random.nextInt(2 * 65_536);
+            dense.add(value);
+            denseValues.add(value);
+        }
+        for (int i = 0; i < 3_000; i++) {
+            long value = random.nextInt(4 * 65_536);
+            sparse.add(value);
+            sparseValues.add(value);
+        }
+        TreeSet<Long> common = new TreeSet<>(denseValues);
+        common.retainAll(sparseValues);
+        assertEquals(common.size(), dense.andCardinality(sparse));
+        assertEquals(common.size(), sparse.andCardinality(dense));
+        assertEquals(denseValues.size(), dense.andCardinality(dense));
+
+        TreeSet<Long> difference = new TreeSet<>(sparseValues);
+        difference.removeAll(denseValues);
+        List<Long> visited = new ArrayList<>();
+        sparse.forEachAndNot(dense, visited::add);
+        assertEquals(List.copyOf(difference), visited);
+
+        List<Long> sampled = new ArrayList<>();
+        dense.forEachSampled(100, sampled::add);
+        assertEquals(100, sampled.size());
+        assertTrue(denseValues.containsAll(sampled));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+
+    @Test
+    @DisplayName("Множество должно вести себя как HashSet при случайных вставках и удалениях")
+    void shouldBehaveLikeHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(5_000) - 10;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, set);
+        for (long value = -10; value < 5_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Копия множества должна содержать те же значения и меняться независимо")
+    void shouldCopyIndependently() {
+        LongHashSet set = new LongHashSet(Set.of(0L, 1L, 42L, -7L));
+        LongHashSet copy = new LongHashSet(set);
+        assertEquals(set, copy);
+        assertTrue(copy.add(100L));
+        assertTrue(copy.remove(0L));
+        assertEquals(Set.of(0L, 1L, 42L, -7L), set);
+        assertEquals(Set.of(1L, 42L, -7L, 100L), copy);
+    }
+
+    @Test
+    @DisplayName("Лайки фильма должны сериализоваться в JSON как массив чисел")
+    void shouldSerializeLikesAsJsonArray() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Вначале");
+        film.addLike(42L);
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.contains("\"likes\":[42]"));
+        Film restored = mapper.readValue(json, Film.class);
+        assertEquals(Set.of(42L), restored.getLikes());
+        assertInstanceOf(LongHashSet.class, restored.getLikes());
+    }
+}
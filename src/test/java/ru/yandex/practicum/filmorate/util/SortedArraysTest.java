@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class SortedArraysTest {
+
+    @Test
+    @DisplayName("Пересечение должно совпадать с наивным и при близких, и при сильно разных размерах")
+    void shouldIntersectArraysOfAnySizes() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            long[] first = randomSorted(random, random.nextInt(40), 2_000);
+            long[] second = randomSorted(random, random.nextInt(2) == 0 ? random.nextInt(40) : 1_000, 2_000);
+            long[] expected = LongStream.of(first)
+                    .filter(value -> LongStream.of(second).anyMatch(other -> other == value))
+                    .toArray();
+            assertArrayEquals(expected, SortedArrays.intersect(first, second));
+            assertArrayEquals(expected, SortedArrays.intersect(second, first));
+        }
+        assertArrayEquals(new long[0], SortedArrays.intersect(new long[0], new long[]{1, 2, 3}));
+    }
+
+    private static long[] randomSorted(Random random, int size, int bound) {
+        return random.longs(size, 0, bound).sorted().distinct().toArray();
+    }
+}